@@ -0,0 +1,26 @@
+-- Adds the denormalized hike_stats table and backfills it from existing
+-- reviews and photos. Safe to re-run.
+USE hike_app;
+
+CREATE TABLE IF NOT EXISTS hike_stats (
+    hike_id INT PRIMARY KEY,
+    review_count INT NOT NULL DEFAULT 0,
+    rating_sum DECIMAL(10,1) NOT NULL DEFAULT 0,
+    avg_rating DECIMAL(6,4) NOT NULL DEFAULT 0,
+    thumbnail_url VARCHAR(500),
+    FOREIGN KEY (hike_id) REFERENCES hikes(hike_id) ON DELETE CASCADE,
+    INDEX idx_hike_stats_avg_rating (avg_rating)
+);
+
+REPLACE INTO hike_stats (hike_id, review_count, rating_sum, avg_rating, thumbnail_url)
+SELECT h.hike_id,
+       COALESCE(r.review_count, 0),
+       COALESCE(r.rating_sum, 0),
+       COALESCE(r.avg_rating, 0),
+       (SELECT p.image_url FROM photos p WHERE p.hike_id = h.hike_id ORDER BY p.created_at ASC, p.photo_id ASC LIMIT 1)
+FROM hikes h
+LEFT JOIN (
+    SELECT hike_id, COUNT(*) AS review_count, SUM(rating) AS rating_sum, AVG(rating) AS avg_rating
+    FROM reviews
+    GROUP BY hike_id
+) r ON r.hike_id = h.hike_id;
@@ -0,0 +1,4 @@
+-- FULLTEXT index used by /api/hikes?q=... (MATCH ... AGAINST).
+USE hike_app;
+
+ALTER TABLE hikes ADD FULLTEXT INDEX ft_hikes_text (name, location_text, description);
@@ -0,0 +1,8 @@
+-- Spatial index used by /api/hikes?lat=&lon=&radius_km= and bbox=.
+-- location is generated from longitude/latitude, so existing rows are filled in.
+USE hike_app;
+
+ALTER TABLE hikes
+    ADD COLUMN location POINT SRID 0
+        GENERATED ALWAYS AS (POINT(COALESCE(longitude, 0), COALESCE(latitude, 0))) STORED NOT NULL,
+    ADD SPATIAL INDEX sp_hikes_location (location);
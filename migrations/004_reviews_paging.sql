@@ -0,0 +1,11 @@
+-- Keyset pagination for GET /api/reviews?hikeId=&limit=&cursor=&sort=.
+-- One index per sort order, each ending in review_id as the tie-breaker.
+-- upvotes_count becomes NOT NULL so "helpful" seeks never meet a NULL key.
+USE hike_app;
+
+UPDATE reviews SET upvotes_count = 0 WHERE upvotes_count IS NULL;
+
+ALTER TABLE reviews
+    MODIFY upvotes_count INT NOT NULL DEFAULT 0,
+    ADD INDEX idx_reviews_hike_created (hike_id, created_at, review_id),
+    ADD INDEX idx_reviews_hike_helpful (hike_id, upvotes_count, review_id);
@@ -0,0 +1,34 @@
+-- Per-hike rating histogram (half-star buckets 1.0 .. 5.0) in hike_stats, kept up
+-- to date by HikeStatsDao.recordReview, and backfilled here from existing reviews.
+-- Ratings are rounded to the nearest half star, as recordReview does.
+USE hike_app;
+
+ALTER TABLE hike_stats
+    ADD COLUMN ratings_10 INT NOT NULL DEFAULT 0 AFTER avg_rating,
+    ADD COLUMN ratings_15 INT NOT NULL DEFAULT 0 AFTER ratings_10,
+    ADD COLUMN ratings_20 INT NOT NULL DEFAULT 0 AFTER ratings_15,
+    ADD COLUMN ratings_25 INT NOT NULL DEFAULT 0 AFTER ratings_20,
+    ADD COLUMN ratings_30 INT NOT NULL DEFAULT 0 AFTER ratings_25,
+    ADD COLUMN ratings_35 INT NOT NULL DEFAULT 0 AFTER ratings_30,
+    ADD COLUMN ratings_40 INT NOT NULL DEFAULT 0 AFTER ratings_35,
+    ADD COLUMN ratings_45 INT NOT NULL DEFAULT 0 AFTER ratings_40,
+    ADD COLUMN ratings_50 INT NOT NULL DEFAULT 0 AFTER ratings_45;
+
+UPDATE hike_stats s
+JOIN (
+    SELECT hike_id,
+           SUM(ROUND(rating * 2) = 2)  AS r10,
+           SUM(ROUND(rating * 2) = 3)  AS r15,
+           SUM(ROUND(rating * 2) = 4)  AS r20,
+           SUM(ROUND(rating * 2) = 5)  AS r25,
+           SUM(ROUND(rating * 2) = 6)  AS r30,
+           SUM(ROUND(rating * 2) = 7)  AS r35,
+           SUM(ROUND(rating * 2) = 8)  AS r40,
+           SUM(ROUND(rating * 2) = 9)  AS r45,
+           SUM(ROUND(rating * 2) = 10) AS r50
+    FROM reviews
+    GROUP BY hike_id
+) r ON r.hike_id = s.hike_id
+SET s.ratings_10 = r.r10, s.ratings_15 = r.r15, s.ratings_20 = r.r20,
+    s.ratings_25 = r.r25, s.ratings_30 = r.r30, s.ratings_35 = r.r35,
+    s.ratings_40 = r.r40, s.ratings_45 = r.r45, s.ratings_50 = r.r50;
@@ -0,0 +1,21 @@
+-- Moves every /api/hikes rating sort key into hike_stats, so the keyset cursor
+-- (avg_rating, created_at, hike_id) is one composite index seek instead of a full
+-- filesort over hikes LEFT JOIN hike_stats.
+--  - every hike gets a hike_stats row (new hikes get one in HikeDao.createHike)
+--  - created_at is copied from hikes
+--  - idx_hike_stats_rating_order replaces idx_hike_stats_avg_rating, which is its prefix
+USE hike_app;
+
+ALTER TABLE hike_stats
+    ADD COLUMN created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP AFTER thumbnail_url;
+
+INSERT IGNORE INTO hike_stats (hike_id)
+SELECT hike_id FROM hikes;
+
+UPDATE hike_stats s
+JOIN hikes h ON h.hike_id = s.hike_id
+SET s.created_at = COALESCE(h.created_at, s.created_at);
+
+ALTER TABLE hike_stats
+    ADD INDEX idx_hike_stats_rating_order (avg_rating, created_at, hike_id),
+    DROP INDEX idx_hike_stats_avg_rating;
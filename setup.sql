@@ -28,7 +28,12 @@ CREATE TABLE hikes (
     latitude DECIMAL(10,7),
     longitude DECIMAL(10,7),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (created_by) REFERENCES users(user_id) ON DELETE SET NULL
+    -- POINT(longitude, latitude) for the SPATIAL index used by /api/hikes?lat=&lon=&radius_km= / bbox=.
+    -- Hikes without coordinates get POINT(0, 0); queries exclude them with latitude IS NOT NULL.
+    location POINT SRID 0 GENERATED ALWAYS AS (POINT(COALESCE(longitude, 0), COALESCE(latitude, 0))) STORED NOT NULL,
+    FOREIGN KEY (created_by) REFERENCES users(user_id) ON DELETE SET NULL,
+    FULLTEXT INDEX ft_hikes_text (name, location_text, description),
+    SPATIAL INDEX sp_hikes_location (location)
 );
 
 -- ==========================
@@ -40,11 +45,14 @@ CREATE TABLE reviews (
     user_id INT NOT NULL,
     rating DECIMAL(2,1) CHECK (rating >= 1 AND rating <= 5),
     review_body TEXT,
-    upvotes_count INT DEFAULT 0,
+    upvotes_count INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (hike_id) REFERENCES hikes(hike_id) ON DELETE CASCADE,
-    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+    -- Keyset pagination of a hike's reviews: newest first / most helpful first
+    INDEX idx_reviews_hike_created (hike_id, created_at, review_id),
+    INDEX idx_reviews_hike_helpful (hike_id, upvotes_count, review_id)
 );
 
 -- ==========================
@@ -74,6 +82,36 @@ CREATE TABLE photos (
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
 );
 
+-- ==========================
+-- HIKE_STATS TABLE
+-- Denormalized per-hike aggregates, updated in the same transaction as
+-- review / photo inserts so search never has to GROUP BY reviews. Every hike
+-- has a row, created together with the hike.
+-- ==========================
+CREATE TABLE hike_stats (
+    hike_id INT PRIMARY KEY,
+    review_count INT NOT NULL DEFAULT 0,
+    rating_sum DECIMAL(10,1) NOT NULL DEFAULT 0,
+    avg_rating DECIMAL(6,4) NOT NULL DEFAULT 0,
+    -- Rating histogram: number of reviews rated 1.0, 1.5, ... 5.0
+    ratings_10 INT NOT NULL DEFAULT 0,
+    ratings_15 INT NOT NULL DEFAULT 0,
+    ratings_20 INT NOT NULL DEFAULT 0,
+    ratings_25 INT NOT NULL DEFAULT 0,
+    ratings_30 INT NOT NULL DEFAULT 0,
+    ratings_35 INT NOT NULL DEFAULT 0,
+    ratings_40 INT NOT NULL DEFAULT 0,
+    ratings_45 INT NOT NULL DEFAULT 0,
+    ratings_50 INT NOT NULL DEFAULT 0,
+    thumbnail_url VARCHAR(500),
+    -- Copy of hikes.created_at, so every /api/hikes rating sort key is in this table
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (hike_id) REFERENCES hikes(hike_id) ON DELETE CASCADE,
+    -- Serves min_rating filters, ORDER BY avg_rating DESC, created_at DESC, hike_id DESC
+    -- and the keyset cursor seek
+    INDEX idx_hike_stats_rating_order (avg_rating, created_at, hike_id)
+);
+
 -- ==========================
 -- FRIENDS TABLE
 -- ==========================
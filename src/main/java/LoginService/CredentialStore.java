@@ -0,0 +1,121 @@
+package LoginService;
+
+import database.DBConnector;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+
+/**
+ * Credential lookups for login/signup, running on pooled connections.
+ * Login is one SELECT (id + hash); signup is one INSERT that relies on the
+ * UNIQUE(email) / UNIQUE(username) keys instead of separate existence checks.
+ */
+public class CredentialStore {
+
+    // MySQL error code for "Duplicate entry ... for key ..."
+    private static final int ER_DUP_ENTRY = 1062;
+
+    /**
+     * user_id + password_hash for one email, fetched together.
+     */
+    public static class Credentials {
+        private final int userId;
+        private final String passwordHash;
+
+        public Credentials(int userId, String passwordHash) {
+            this.userId = userId;
+            this.passwordHash = passwordHash;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getPasswordHash() {
+            return passwordHash;
+        }
+    }
+
+    /**
+     * Thrown by createUser when the email or username is already taken.
+     */
+    public static class DuplicateUserException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public enum Field { EMAIL, USERNAME }
+
+        private final Field field;
+
+        public DuplicateUserException(Field field, Throwable cause) {
+            super("Duplicate " + field.name().toLowerCase(), cause);
+            this.field = field;
+        }
+
+        public Field getField() {
+            return field;
+        }
+    }
+
+    /**
+     * Returns the credentials for an email, or null if no such user.
+     */
+    public Credentials findByEmail(String email) throws SQLException {
+        String sql = "SELECT user_id, password_hash FROM users WHERE email = ?";
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, email);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Credentials(rs.getInt("user_id"), rs.getString("password_hash"));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Insert a user and return the generated user_id.
+     * Unique-key violations are reported as DuplicateUserException.
+     */
+    public int createUser(String username, String email, String passwordHash)
+            throws SQLException, DuplicateUserException {
+        String sql = "INSERT INTO users (username, email, password_hash) VALUES (?, ?, ?)";
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, username);
+            stmt.setString(2, email);
+            stmt.setString(3, passwordHash);
+
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getInt(1);
+                }
+                throw new SQLException("Creating user failed, no ID obtained.");
+            }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            if (e.getErrorCode() != ER_DUP_ENTRY) {
+                throw e;
+            }
+            throw new DuplicateUserException(duplicateField(e), e);
+        }
+    }
+
+    /**
+     * Work out which unique key was hit from the MySQL message,
+     * e.g. "Duplicate entry 'bob' for key 'users.username'".
+     * Only the key name is inspected - the entry value is user input.
+     */
+    private DuplicateUserException.Field duplicateField(SQLException e) {
+        String msg = e.getMessage() != null ? e.getMessage() : "";
+        int idx = msg.lastIndexOf("for key '");
+        String key = idx >= 0 ? msg.substring(idx) : "";
+        return key.contains("username")
+                ? DuplicateUserException.Field.USERNAME
+                : DuplicateUserException.Field.EMAIL;
+    }
+}
@@ -1,58 +1,21 @@
 package LoginService;
 
+import database.DBConnector;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 
+/**
+ * Password-reset helpers. Login/signup credentials live in CredentialStore.
+ * Connections come from the shared pool in DBConnector.
+ */
 public class DBConnect {
 
-    private String url = "jdbc:mysql://localhost:3306/ADD_YOUR_DATABASE_NAME_HERE";
-    private String username = "root";
-    private String password = "ADD_YOUR_PASSWORD_HERE";
-
-    public DBConnect() {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-        }
-    }
-
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, username, password);
-    }
-
-    public String getPasswordHash(String email) {
-        String query = "SELECT password_hash FROM users WHERE email = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, email);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("password_hash");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    public int getUserId(String email) {
-        String query = "SELECT user_id FROM users WHERE email = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, email);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("user_id");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return -1;
+        return DBConnector.getInstance().getConnection();
     }
 
     public boolean emailExists(String email) {
@@ -91,39 +54,4 @@ public class DBConnect {
             return false;
         }
     }
-
-    public boolean usernameExists(String username) {
-        String query = "SELECT 1 FROM users WHERE username = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
-    }
-
-    public int createUser(String username, String email, String passwordHash) {
-        String query = "INSERT INTO users (username, email, password_hash) VALUES (?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, username);
-            stmt.setString(2, email);
-            stmt.setString(3, passwordHash);
-            
-            int rows = stmt.executeUpdate();
-            if (rows > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        return generatedKeys.getInt(1);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return -1;
-    }
 }
\ No newline at end of file
@@ -27,7 +27,7 @@ public class LoginServlet extends HttpServlet {
         
         PrintWriter out = response.getWriter();
         Gson gson = new Gson();
-        DBConnect db = new DBConnect();
+        CredentialStore credentials = new CredentialStore();
         JsonObject result = new JsonObject();
 
         try {
@@ -47,11 +47,12 @@ public class LoginServlet extends HttpServlet {
 
             
             
-            String storedHash = db.getPasswordHash(email); 
-            int userId = db.getUserId(email);           
+            // One query for both the user id and the stored hash
+            CredentialStore.Credentials creds = credentials.findByEmail(email);
 
-           
-            if (storedHash != null && BCrypt.checkpw(rawPassword, storedHash)) {
+            if (creds != null && creds.getPasswordHash() != null
+                    && BCrypt.checkpw(rawPassword, creds.getPasswordHash())) {
+                int userId = creds.getUserId();
                 String token = JwtUtil.generateToken(email, userId);
                 String cookieHeader = String.format(
                     "accessToken=%s; Max-Age=%d; Path=/; HttpOnly; SameSite=Lax",
@@ -27,7 +27,7 @@ public class SignupServlet extends HttpServlet {
         
         PrintWriter out = response.getWriter();
         Gson gson = new Gson();
-        DBConnect db = new DBConnect();
+        CredentialStore credentials = new CredentialStore();
         JsonObject result = new JsonObject();
 
         try {
@@ -55,29 +55,24 @@ public class SignupServlet extends HttpServlet {
                 return;
             }
 
-            // Check if email already exists
-            if (db.emailExists(email)) {
-                response.setStatus(HttpServletResponse.SC_CONFLICT);
-                result.addProperty("status", "fail");
-                result.addProperty("message", "Email already registered");
-                out.print(gson.toJson(result));
-                return;
-            }
+            // Hash the password
+            String hashedPassword = BCrypt.hashpw(rawPassword, BCrypt.gensalt());
 
-            // Check if username already exists
-            if (db.usernameExists(username)) {
+            // Create the user - a single INSERT; the UNIQUE keys on email/username
+            // replace the separate existence checks
+            int userId;
+            try {
+                userId = credentials.createUser(username, email, hashedPassword);
+            } catch (CredentialStore.DuplicateUserException e) {
                 response.setStatus(HttpServletResponse.SC_CONFLICT);
                 result.addProperty("status", "fail");
-                result.addProperty("message", "Username already taken");
+                result.addProperty("message",
+                        e.getField() == CredentialStore.DuplicateUserException.Field.USERNAME
+                                ? "Username already taken"
+                                : "Email already registered");
                 out.print(gson.toJson(result));
                 return;
             }
-
-            // Hash the password
-            String hashedPassword = BCrypt.hashpw(rawPassword, BCrypt.gensalt());
-
-            // Create the user
-            int userId = db.createUser(username, email, hashedPassword);
             
             if (userId > 0) {
                 // Generate JWT token
@@ -0,0 +1,381 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small bounded JDBC connection pool used behind DBConnector.getConnection().
+ *
+ * Every borrowed connection is a proxy: calling close() hands the physical
+ * connection back to the pool instead of closing the socket, so DAOs can use
+ * plain try-with-resources per operation.
+ *
+ * Features: min idle / max size, idle eviction, validation on borrow,
+ * leak detection (connections held too long are logged with the borrowing thread,
+ * and optionally the borrow site) and a borrow-wait timeout when every connection
+ * is in use.
+ *
+ * Capturing the borrow site costs a stack trace on every borrow, so it is off
+ * unless captureBorrowSite is set (e.g. while hunting a leak).
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minIdle;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakThresholdMs;
+    private final boolean captureBorrowSite;
+
+    // Skip the isValid() round trip for connections that were used very recently
+    private static final long VALIDATION_SKIP_MS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_INTERVAL_MS = 30_000;
+
+    // One permit per connection that may be checked out at the same time
+    private final Semaphore permits;
+    // Idle physical connections, most recently used first (guarded by "this")
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String user, String password,
+                          int minIdle, int maxSize,
+                          long borrowTimeoutMs, long idleTimeoutMs, long leakThresholdMs,
+                          boolean captureBorrowSite) {
+        if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: minIdle=" + minIdle + ", maxSize=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.captureBorrowSite = captureBorrowSite && leakThresholdMs > 0;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                HOUSEKEEPING_INTERVAL_MS, HOUSEKEEPING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        fillToMinIdle();
+    }
+
+    // -----------------------------
+    // Borrow / return
+    // -----------------------------
+
+    /**
+     * Borrow a connection. The caller must close() it (try-with-resources)
+     * to return it to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMs
+                        + "ms waiting for a database connection (all " + maxSize + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pc = takeValidIdle();
+            if (pc == null) {
+                pc = new PooledConnection(openPhysical());
+            }
+            pc.markBorrowed(captureBorrowSite);
+            borrowed.add(pc);
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        while (true) {
+            PooledConnection pc;
+            synchronized (this) {
+                pc = idle.pollFirst();
+            }
+            if (pc == null) {
+                return null;
+            }
+            if (isUsable(pc)) {
+                return pc;
+            }
+            closeQuietly(pc.physical);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - pc.lastReturnedAt < VALIDATION_SKIP_MS) {
+                return true;
+            }
+            return pc.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        if (!borrowed.remove(pc)) {
+            return;
+        }
+        try {
+            boolean healthy = resetState(pc.physical);
+            if (healthy && !closed) {
+                pc.lastReturnedAt = System.currentTimeMillis();
+                synchronized (this) {
+                    idle.offerFirst(pc);
+                }
+            } else {
+                closeQuietly(pc.physical);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Undo anything a caller may have left behind (open transaction,
+     * autocommit off, read-only) so the next borrower gets a clean connection.
+     */
+    private boolean resetState(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("ConnectionPool: discarding connection that failed to reset: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    // -----------------------------
+    // Housekeeping
+    // -----------------------------
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            fillToMinIdle();
+            reportLeaks();
+        } catch (RuntimeException e) {
+            System.err.println("ConnectionPool: housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            // Oldest connections sit at the tail of the deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastReturnedAt > idleTimeoutMs) {
+                    it.remove();
+                    closeQuietly(pc.physical);
+                }
+            }
+        }
+    }
+
+    private void fillToMinIdle() {
+        while (!closed) {
+            synchronized (this) {
+                if (idle.size() >= minIdle || idle.size() + borrowed.size() >= maxSize) {
+                    return;
+                }
+            }
+            try {
+                PooledConnection pc = new PooledConnection(openPhysical());
+                synchronized (this) {
+                    idle.offerLast(pc);
+                }
+            } catch (SQLException e) {
+                System.err.println("ConnectionPool: could not open idle connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void reportLeaks() {
+        if (leakThresholdMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pc : borrowed) {
+            if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMs) {
+                pc.leakReported = true;
+                System.err.println("ConnectionPool: possible connection leak - connection held for "
+                        + (now - pc.borrowedAt) + "ms by thread " + pc.borrowerThread);
+                if (pc.borrowSite != null) {
+                    pc.borrowSite.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // -----------------------------
+    // Stats / shutdown
+    // -----------------------------
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Close all idle connections and stop housekeeping. Connections that are
+     * still borrowed are closed when they are returned.
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (this) {
+            for (PooledConnection pc : idle) {
+                closeQuietly(pc.physical);
+            }
+            idle.clear();
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // -----------------------------
+    // Pooled connection + proxy handle
+    // -----------------------------
+
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastReturnedAt = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile String borrowerThread;
+        volatile Exception borrowSite;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        void markBorrowed(boolean captureSite) {
+            borrowedAt = System.currentTimeMillis();
+            borrowerThread = Thread.currentThread().getName();
+            borrowSite = captureSite ? new Exception("Connection borrowed here") : null;
+            leakReported = false;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * One logical checkout. After close() the handle is dead even if the
+     * physical connection has already been handed to another borrower.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean returned = false;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + (returned ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package database;
+
+/**
+ * Response to POST /api/reviews: the new review plus the hike's updated rating summary,
+ * so the client can refresh its header without reloading the review list.
+ */
+public class CreatedReviewResponse extends ReviewResponse {
+    private double averageRating;
+    private int totalReviews;
+
+    public CreatedReviewResponse() {
+    }
+
+    public CreatedReviewResponse(int id, int hikeId, int userId, String username, double rating,
+                                 String comment, String createdAt, double averageRating, int totalReviews) {
+        super(id, hikeId, userId, username, rating, comment, 0, createdAt, false);
+        this.averageRating = averageRating;
+        this.totalReviews = totalReviews;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(double averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public int getTotalReviews() {
+        return totalReviews;
+    }
+
+    public void setTotalReviews(int totalReviews) {
+        this.totalReviews = totalReviews;
+    }
+}
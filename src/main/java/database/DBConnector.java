@@ -5,9 +5,20 @@ public class DBConnector {
     private static final String URL = "jdbc:mysql://localhost:3306/ADD_YOUR_DATABASE_NAME_HERE";
     private static final String USER = "root";
     private static final String PASSWORD = "ADD_YOUR_PASSWORD_HERE";
+    // Server-side cursors, so statements with a fetch size (streamed search, index load)
+    // read their rows in batches instead of buffering the whole result in the driver
+    private static final String CONNECTION_OPTIONS = "useCursorFetch=true";
+
+    // Connection pool settings
+    private static final int POOL_MIN_IDLE = 2;
+    private static final int POOL_MAX_SIZE = 20;
+    private static final long POOL_BORROW_TIMEOUT_MS = 5_000;         // wait for a free connection
+    private static final long POOL_IDLE_TIMEOUT_MS = 10 * 60_000;     // close idle connections above min
+    private static final long POOL_LEAK_THRESHOLD_MS = 30_000;        // log connections held longer than this
+    private static final boolean POOL_CAPTURE_BORROW_SITE = false;    // also log where leaked connections were borrowed (costs a stack trace per borrow)
     
-    private static DBConnector instance;
-    private Connection conn;
+    private static volatile DBConnector instance;
+    private ConnectionPool pool;
 
     public static void main(String[] args) {
         try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD)) {
@@ -22,15 +33,16 @@ public class DBConnector {
     private DBConnector() {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
-            conn = DriverManager.getConnection(URL, USER, PASSWORD);
-            System.out.println("Database connected successfully.");
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL driver not found.");
             e.printStackTrace();
-        } catch (SQLException e) {
-            System.err.println("Failed to connect to database.");
-            e.printStackTrace();
         }
+        String poolUrl = URL + (URL.contains("?") ? "&" : "?") + CONNECTION_OPTIONS;
+        pool = new ConnectionPool(poolUrl, USER, PASSWORD,
+                POOL_MIN_IDLE, POOL_MAX_SIZE,
+                POOL_BORROW_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS,
+                POOL_CAPTURE_BORROW_SITE);
+        System.out.println("Database connection pool started (max " + POOL_MAX_SIZE + " connections).");
     }
 
     // -----------------------------
@@ -50,11 +62,27 @@ public class DBConnector {
     // -----------------------------
     // Get database connection
     // -----------------------------
+    /**
+     * Borrow a pooled connection. Always close it (try-with-resources) when
+     * the operation is done - close() returns it to the pool.
+     */
     public Connection getConnection() throws SQLException {
-        if (conn == null || conn.isClosed()) {
-            conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        return pool.borrow();
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    // -----------------------------
+    // Shutdown (called when the webapp is undeployed)
+    // -----------------------------
+    public static void shutdown() {
+        DBConnector current = instance;
+        if (current != null) {
+            current.pool.shutdown();
+            instance = null;
         }
-        return conn;
     }
     
     // -----------------------------
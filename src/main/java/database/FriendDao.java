@@ -12,8 +12,8 @@ public class FriendDao {
         }
 
         String sql = "INSERT INTO friends (follower_id, followed_id) VALUES (?, ?)";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, followerId);
             stmt.setInt(2, followedId);
             int rows = stmt.executeUpdate();
@@ -23,8 +23,8 @@ public class FriendDao {
 
     public boolean removeFriend(int followerId, int followedId) throws SQLException {
         String sql = "DELETE FROM friends WHERE follower_id = ? AND followed_id = ?";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, followerId);
             stmt.setInt(2, followedId);
             int rows = stmt.executeUpdate();
@@ -34,8 +34,8 @@ public class FriendDao {
 
     public boolean isFollowing(int followerId, int followedId) throws SQLException {
         String sql = "SELECT COUNT(*) as cnt FROM friends WHERE follower_id = ? AND followed_id = ?";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, followerId);
             stmt.setInt(2, followedId);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -55,8 +55,8 @@ public class FriendDao {
                      "WHERE f.follower_id = ? " +
                      "ORDER BY f.created_at DESC";
 
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -81,8 +81,8 @@ public class FriendDao {
                      "WHERE f.followed_id = ? " +
                      "ORDER BY f.created_at DESC";
 
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -101,8 +101,8 @@ public class FriendDao {
 
     public int getFollowingCount(int userId) throws SQLException {
         String sql = "SELECT COUNT(*) as cnt FROM friends WHERE follower_id = ?";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -115,8 +115,8 @@ public class FriendDao {
 
     public int getFollowersCount(int userId) throws SQLException {
         String sql = "SELECT COUNT(*) as cnt FROM friends WHERE followed_id = ?";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -129,8 +129,8 @@ public class FriendDao {
 
     public int findUserIdByUsername(String username) throws SQLException {
         String sql = "SELECT user_id FROM users WHERE username = ?";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, username);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -143,8 +143,8 @@ public class FriendDao {
 
     public boolean userExists(int userId) throws SQLException {
         String sql = "SELECT COUNT(*) as cnt FROM users WHERE user_id = ?";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -170,8 +170,8 @@ public class FriendDao {
                      "ORDER BY r.created_at DESC " +
                      "LIMIT ?";
 
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, friendUserId);
             stmt.setInt(2, limit);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -195,8 +195,8 @@ public class FriendDao {
 
     public FriendResponse getUserById(int userId) throws SQLException {
         String sql = "SELECT user_id, username, email, created_at FROM users WHERE user_id = ?";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
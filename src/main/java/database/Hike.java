@@ -13,6 +13,8 @@ public class Hike {
     private String thumbnail_url;
     @SerializedName("created_by")
     private Integer created_by;
+    // Kilometres from the searcher's lat/lon; only set (and serialized) for location searches
+    private Double distance_km;
 
     // Constructor matching the ResultSet columns
     public Hike(int hike_id, String name, String location_text, double distance, 
@@ -63,4 +65,12 @@ public class Hike {
     public Integer getCreated_by() {
         return created_by;
     }
+
+    public Double getDistance_km() {
+        return distance_km;
+    }
+
+    public void setDistance_km(Double distance_km) {
+        this.distance_km = distance_km;
+    }
 }
\ No newline at end of file
@@ -1,20 +1,24 @@
 package database;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * DAO for hikes.
- * Uses the shared DBConnector (same pattern as other DAOs in the project).
+ * Borrows a pooled connection from DBConnector per operation (same pattern as other DAOs in the project).
  */
 public class HikeDao {
 
+    private final HikeStatsDao hikeStatsDao = new HikeStatsDao();
+
     /**
      * Case-insensitive existence check for hike name.
      */
     public boolean existsByNameIgnoreCase(String name) throws SQLException {
         String sql = "SELECT COUNT(*) as cnt FROM hikes WHERE LOWER(name) = LOWER(?)";
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, name);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -26,8 +30,7 @@ public class HikeDao {
     }
 
     /**
-     * Insert a hike and return generated hike_id.
-     * Caller may manage transactions (commit/rollback) on the shared connection.
+     * Insert a hike and return generated hike_id (own connection and transaction).
      */
     public int createHike(
             String name,
@@ -39,9 +42,40 @@ public class HikeDao {
             Double latitude,
             Double longitude,
             String description
+    ) throws SQLException {
+        try (Connection conn = DBConnector.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int hikeId = createHike(conn, name, locationText, difficulty, distance, elevation,
+                        createdBy, latitude, longitude, description);
+                conn.commit();
+                return hikeId;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Insert a hike and its hike_stats row on the caller's connection and return generated hike_id.
+     * Caller manages the transaction (commit/rollback) and closes the connection.
+     */
+    public int createHike(
+            Connection conn,
+            String name,
+            String locationText,
+            Double difficulty,
+            Double distance,
+            Integer elevation,
+            Integer createdBy,
+            Double latitude,
+            Double longitude,
+            String description
     ) throws SQLException {
         String sql = "INSERT INTO hikes (name, location_text, difficulty, distance, elevation, created_by, latitude, longitude, description) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        Connection conn = DBConnector.getInstance().getConnection();
         try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, name);
             if (locationText != null) stmt.setString(2, locationText); else stmt.setNull(2, Types.VARCHAR);
@@ -58,13 +92,80 @@ public class HikeDao {
                 throw new SQLException("Creating hike failed, no rows affected.");
             }
 
+            int hikeId;
             try (ResultSet keys = stmt.getGeneratedKeys()) {
                 if (keys.next()) {
-                    return keys.getInt(1);
+                    hikeId = keys.getInt(1);
                 } else {
                     throw new SQLException("Creating hike failed, no ID obtained.");
                 }
             }
+            hikeStatsDao.createForHike(conn, hikeId);
+            return hikeId;
+        }
+    }
+
+    private static final String RECORD_SELECT =
+            "SELECT h.hike_id, h.name, h.location_text, h.description, h.distance, h.difficulty, " +
+            "h.created_by, h.created_at, h.latitude, h.longitude, " +
+            "COALESCE(s.avg_rating, 0.0) AS average_rating, COALESCE(s.review_count, 0) AS total_ratings, " +
+            "s.thumbnail_url " +
+            "FROM hikes h LEFT JOIN hike_stats s ON s.hike_id = h.hike_id ";
+
+    /**
+     * Every hike with its aggregates (used to build the in-memory search index).
+     */
+    public List<HikeRecord> findAllRecords() throws SQLException {
+        List<HikeRecord> records = new ArrayList<>();
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RECORD_SELECT)) {
+            stmt.setFetchSize(500);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(mapRecord(rs));
+                }
+            }
         }
+        return records;
+    }
+
+    /**
+     * One hike with its aggregates, or null if it does not exist.
+     */
+    public HikeRecord findRecordById(int hikeId) throws SQLException {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RECORD_SELECT + "WHERE h.hike_id = ?")) {
+            stmt.setInt(1, hikeId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapRecord(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    private HikeRecord mapRecord(ResultSet rs) throws SQLException {
+        int createdBy = rs.getInt("created_by");
+        Integer createdByValue = rs.wasNull() ? null : createdBy;
+        double latitude = rs.getDouble("latitude");
+        Double latitudeValue = rs.wasNull() ? null : latitude;
+        double longitude = rs.getDouble("longitude");
+        Double longitudeValue = rs.wasNull() ? null : longitude;
+        return new HikeRecord(
+                rs.getInt("hike_id"),
+                rs.getString("name"),
+                rs.getString("location_text"),
+                rs.getString("description"),
+                rs.getDouble("distance"),
+                rs.getDouble("difficulty"),
+                rs.getDouble("average_rating"),
+                rs.getInt("total_ratings"),
+                rs.getString("thumbnail_url"),
+                createdByValue,
+                rs.getTimestamp("created_at"),
+                latitudeValue,
+                longitudeValue
+        );
     }
 }
@@ -0,0 +1,106 @@
+package database;
+
+import java.sql.Timestamp;
+
+/**
+ * One hikes row joined with its hike_stats aggregates.
+ * Used to load and refresh the in-memory search structures.
+ */
+public class HikeRecord {
+    private final int hikeId;
+    private final String name;
+    private final String locationText;
+    private final String description;
+    private final double distance;
+    private final double difficulty;
+    private final double averageRating;
+    private final int totalRatings;
+    private final String thumbnailUrl;
+    private final Integer createdBy;
+    private final Timestamp createdAt;
+    private final Double latitude;   // null when the hike has no coordinates
+    private final Double longitude;
+
+    public HikeRecord(int hikeId, String name, String locationText, String description,
+                      double distance, double difficulty, double averageRating, int totalRatings,
+                      String thumbnailUrl, Integer createdBy, Timestamp createdAt,
+                      Double latitude, Double longitude) {
+        this.hikeId = hikeId;
+        this.name = name;
+        this.locationText = locationText;
+        this.description = description;
+        this.distance = distance;
+        this.difficulty = difficulty;
+        this.averageRating = averageRating;
+        this.totalRatings = totalRatings;
+        this.thumbnailUrl = thumbnailUrl;
+        this.createdBy = createdBy;
+        this.createdAt = createdAt;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * The search-result view of this row.
+     */
+    public Hike toHike() {
+        return new Hike(hikeId, name, locationText, distance, difficulty,
+                averageRating, totalRatings, thumbnailUrl, createdBy);
+    }
+
+    public int getHikeId() {
+        return hikeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLocationText() {
+        return locationText;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public double getDifficulty() {
+        return difficulty;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    public int getTotalRatings() {
+        return totalRatings;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public Integer getCreatedBy() {
+        return createdBy;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+}
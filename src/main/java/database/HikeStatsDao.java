@@ -0,0 +1,88 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * DAO for the denormalized hike_stats table (review count, rating sum/average, rating
+ * histogram, thumbnail).
+ *
+ * Every method runs on the caller's connection so the aggregate is updated in the
+ * same transaction as the review / photo insert that changed it.
+ */
+public class HikeStatsDao {
+
+    /** Half-star rating buckets, 1.0 through 5.0. */
+    public static final int HISTOGRAM_BUCKETS = 9;
+
+    /**
+     * hike_stats column counting the ratings in a bucket: ratings_10 for 1.0, ratings_15
+     * for 1.5, ... ratings_50 for 5.0.
+     */
+    public static String histogramColumn(int bucket) {
+        if (bucket < 0 || bucket >= HISTOGRAM_BUCKETS) {
+            throw new IllegalArgumentException("No rating bucket " + bucket);
+        }
+        return "ratings_" + (10 + 5 * bucket);
+    }
+
+    /** Bucket of a rating, rounded to the nearest half star. */
+    public static int histogramBucket(double rating) {
+        int bucket = (int) Math.round(rating * 2) - 2;
+        if (bucket < 0 || bucket >= HISTOGRAM_BUCKETS) {
+            throw new IllegalArgumentException("Rating must be between 1.0 and 5.0: " + rating);
+        }
+        return bucket;
+    }
+
+    /**
+     * Create the stats row for a new hike, in the hike's transaction, so every hike has
+     * one and search can read its sort keys from hike_stats alone. created_at is copied
+     * from the hike.
+     */
+    public void createForHike(Connection conn, int hikeId) throws SQLException {
+        String sql = "INSERT INTO hike_stats (hike_id, created_at) " +
+                     "SELECT hike_id, COALESCE(created_at, CURRENT_TIMESTAMP) FROM hikes WHERE hike_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, hikeId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Fold one new rating into the hike's aggregates and its histogram bucket.
+     * MySQL applies the ON DUPLICATE KEY assignments left to right, so avg_rating
+     * is computed from the already-incremented sum and count.
+     */
+    public void recordReview(Connection conn, int hikeId, double rating) throws SQLException {
+        String bucket = histogramColumn(histogramBucket(rating));
+        String sql = "INSERT INTO hike_stats (hike_id, review_count, rating_sum, avg_rating, " + bucket + ") " +
+                     "VALUES (?, 1, ?, ?, 1) " +
+                     "ON DUPLICATE KEY UPDATE review_count = review_count + 1, " +
+                     "rating_sum = rating_sum + ?, " +
+                     "avg_rating = rating_sum / review_count, " +
+                     bucket + " = " + bucket + " + 1";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, hikeId);
+            stmt.setDouble(2, rating);
+            stmt.setDouble(3, rating);
+            stmt.setDouble(4, rating);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Record a photo; the first photo stored for a hike becomes its thumbnail.
+     */
+    public void recordPhoto(Connection conn, int hikeId, String imageUrl) throws SQLException {
+        String sql = "INSERT INTO hike_stats (hike_id, thumbnail_url) VALUES (?, ?) " +
+                     "ON DUPLICATE KEY UPDATE thumbnail_url = COALESCE(thumbnail_url, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, hikeId);
+            stmt.setString(2, imageUrl);
+            stmt.setString(3, imageUrl);
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -9,13 +9,33 @@ import java.sql.SQLException;
  */
 public class PhotoDao {
 
+    private final HikeStatsDao hikeStatsDao = new HikeStatsDao();
+
     /**
      * Insert a photo record linked to a hike and user.
      * imageUrl should be a server-relative path (e.g., "/images/full/abc.jpg")
      */
     public void insertPhoto(int hikeId, int userId, String imageUrl, String caption) throws SQLException {
+        try (Connection conn = DBConnector.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insertPhoto(conn, hikeId, userId, imageUrl, caption);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Same as above, but on the caller's connection so it can join an open transaction.
+     * The hike_stats thumbnail is set in that same transaction.
+     */
+    public void insertPhoto(Connection conn, int hikeId, int userId, String imageUrl, String caption) throws SQLException {
         String sql = "INSERT INTO photos (hike_id, user_id, image_url, caption) VALUES (?, ?, ?, ?)";
-        Connection conn = DBConnector.getInstance().getConnection();
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, hikeId);
             stmt.setInt(2, userId);
@@ -23,5 +43,7 @@ public class PhotoDao {
             if (caption != null) stmt.setString(4, caption); else stmt.setNull(4, java.sql.Types.VARCHAR);
             stmt.executeUpdate();
         }
+
+        hikeStatsDao.recordPhoto(conn, hikeId, imageUrl);
     }
 }
@@ -0,0 +1,79 @@
+package database;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for GET /api/reviews: the sort key and review_id of the last
+ * review on the previous page. The next page seeks to rows strictly after it in
+ * "created_at DESC, review_id DESC" (newest) or "upvotes_count DESC, review_id DESC"
+ * (helpful) order. The sort is part of the token, so a cursor can't be reused with
+ * the other sort.
+ */
+public class ReviewCursor {
+
+    public enum Sort {
+        NEWEST("n"), HELPFUL("h");
+
+        private final String code;
+
+        Sort(String code) {
+            this.code = code;
+        }
+
+        /** Parse the sort parameter; null / empty means NEWEST. */
+        public static Sort fromParam(String value) {
+            if (value == null || value.isEmpty() || value.equalsIgnoreCase("newest")) {
+                return NEWEST;
+            }
+            if (value.equalsIgnoreCase("helpful")) {
+                return HELPFUL;
+            }
+            throw new IllegalArgumentException("sort must be one of: newest, helpful");
+        }
+    }
+
+    private final Sort sort;
+    private final long key;      // created_at in epoch millis, or upvotes_count
+    private final int reviewId;
+
+    public ReviewCursor(Sort sort, long key, int reviewId) {
+        this.sort = sort;
+        this.key = key;
+        this.reviewId = reviewId;
+    }
+
+    public String encode() {
+        String raw = sort.code + "|" + key + "|" + reviewId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token produced by encode() for the given sort. Throws IllegalArgumentException
+     * if it is malformed or was issued for the other sort.
+     */
+    public static ReviewCursor decode(String token, Sort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !parts[0].equals(sort.code)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ReviewCursor(sort, Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) { // also covers NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public int getReviewId() {
+        return reviewId;
+    }
+}
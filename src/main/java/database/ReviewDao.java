@@ -2,15 +2,73 @@ package database;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ReviewDao {
 
-    public int createReview(int hikeId, int userId, double rating, String comment) throws SQLException {
+    private final HikeStatsDao hikeStatsDao = new HikeStatsDao();
+
+    /**
+     * Insert a review and update hike_stats in one transaction, and return the new review
+     * with the hike's updated average / count. The summary is read back from hike_stats
+     * inside the same transaction, so it is exactly the state this insert produced, and
+     * the cost does not grow with the number of reviews.
+     */
+    public CreatedReviewResponse createReview(int hikeId, int userId, double rating, String comment) throws SQLException {
+        String summarySql = """
+            SELECT u.username, r.created_at,
+                   COALESCE(s.avg_rating, 0.0) AS average_rating, COALESCE(s.review_count, 0) AS total_reviews
+            FROM reviews r
+            INNER JOIN users u ON r.user_id = u.user_id
+            LEFT JOIN hike_stats s ON s.hike_id = r.hike_id
+            WHERE r.review_id = ?
+        """;
+
+        try (Connection conn = DBConnector.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int reviewId = createReview(conn, hikeId, userId, rating, comment);
+
+                String username = null;
+                String createdAtStr = java.time.LocalDateTime.now().toString();
+                double averageRating = rating;
+                int totalReviews = 1;
+                try (PreparedStatement stmt = conn.prepareStatement(summarySql)) {
+                    stmt.setInt(1, reviewId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            username = rs.getString("username");
+                            Timestamp createdAt = rs.getTimestamp("created_at");
+                            if (createdAt != null) {
+                                createdAtStr = createdAt.toLocalDateTime().toString();
+                            }
+                            averageRating = rs.getDouble("average_rating");
+                            totalReviews = rs.getInt("total_reviews");
+                        }
+                    }
+                }
+
+                conn.commit();
+                return new CreatedReviewResponse(reviewId, hikeId, userId, username, rating, comment,
+                        createdAtStr, averageRating, totalReviews);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Insert a review on the caller's connection (e.g. inside AddHikeServlet's transaction).
+     * Also folds the rating into hike_stats, so the caller's transaction covers both.
+     */
+    public int createReview(Connection conn, int hikeId, int userId, double rating, String comment) throws SQLException {
         String sql = "INSERT INTO reviews (hike_id, user_id, rating, review_body) VALUES (?, ?, ?, ?)";
+        int reviewId;
 
-        // Do NOT close the shared connection – only close the statement/result set
-        Connection conn = DBConnector.getInstance().getConnection();
         try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setInt(1, hikeId);
@@ -25,68 +83,176 @@ public class ReviewDao {
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
+                    reviewId = generatedKeys.getInt(1);
                 } else {
                     throw new SQLException("Creating review failed, no ID obtained.");
                 }
             }
         }
+
+        hikeStatsDao.recordReview(conn, hikeId, rating);
+        return reviewId;
     }
 
     public List<ReviewResponse> getReviewsForHike(int hikeId, Integer currentUserId) throws SQLException {
+        return getReviewsPage(hikeId, currentUserId, ReviewCursor.Sort.NEWEST, null, null).getReviews();
+    }
+
+    /**
+     * One page of a hike's reviews in the given order, starting after cursor (null = first page).
+     * limit null returns every remaining review. Seeks on (created_at, review_id) or
+     * (upvotes_count, review_id), which idx_reviews_hike_created / idx_reviews_hike_helpful cover.
+     * The hike's average rating and review count come from its hike_stats row on the same
+     * connection, so no page costs more as the hike collects reviews.
+     */
+    public ReviewPage getReviewsPage(int hikeId, Integer currentUserId, ReviewCursor.Sort sort,
+                                     Integer limit, ReviewCursor cursor) throws SQLException {
         List<ReviewResponse> reviews = new ArrayList<>();
+        boolean helpful = sort == ReviewCursor.Sort.HELPFUL;
+        String keyColumn = helpful ? "r.upvotes_count" : "r.created_at";
+
+        // The viewer's upvote flags come from their cached set of upvoted review ids
+        // (UserUpvoteCache). With the cache disabled they come from the same statement:
+        // review_upvotes is UNIQUE(review_id, user_id), so the join adds at most one row
+        // per review.
+        UserUpvoteCache upvoteCache = UserUpvoteCache.getInstance();
+        boolean joinUpvotes = currentUserId != null && !upvoteCache.isEnabled();
 
-        String sql = """
+        StringBuilder sql = new StringBuilder("""
             SELECT r.review_id, r.hike_id, r.user_id, u.username, r.rating, r.review_body,
                    r.upvotes_count, r.created_at
-            FROM reviews r
-            INNER JOIN users u ON r.user_id = u.user_id
-            WHERE r.hike_id = ?
-            ORDER BY r.created_at DESC
-        """;
+            """);
+        if (joinUpvotes) {
+            sql.append(", (ru.user_id IS NOT NULL) AS upvoted_by_current_user");
+        }
+        sql.append(" FROM reviews r INNER JOIN users u ON r.user_id = u.user_id");
+        if (joinUpvotes) {
+            sql.append(" LEFT JOIN review_upvotes ru ON ru.review_id = r.review_id AND ru.user_id = ?");
+        }
+        sql.append(" WHERE r.hike_id = ?");
+        if (cursor != null) {
+            sql.append(" AND (").append(keyColumn).append(" < ? OR (")
+               .append(keyColumn).append(" = ? AND r.review_id < ?))");
+        }
+        sql.append(" ORDER BY ").append(keyColumn).append(" DESC, r.review_id DESC");
+        if (limit != null) {
+            sql.append(" LIMIT ?");
+        }
 
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection()) {
 
-            stmt.setInt(1, hikeId);
+            int[] upvotedIds = null;
+            if (currentUserId != null && !joinUpvotes) {
+                upvotedIds = upvoteCache.get(currentUserId);
+                if (upvotedIds == null) {
+                    long stamp = upvoteCache.loadStamp(currentUserId);
+                    upvotedIds = loadUpvotedReviewIds(conn, currentUserId);
+                    upvoteCache.put(currentUserId, upvotedIds, stamp);
+                }
+            }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    int reviewId = rs.getInt("review_id");
-                    int userId = rs.getInt("user_id");
-                    String username = rs.getString("username");
-                    double rating = rs.getDouble("rating");
-                    String comment = rs.getString("review_body");
-                    int upvotes = rs.getInt("upvotes_count");
-                    Timestamp createdAt = rs.getTimestamp("created_at");
-
-                    boolean upvotedByCurrentUser = false;
-                    if (currentUserId != null) {
-                        upvotedByCurrentUser = hasUserUpvoted(reviewId, currentUserId);
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                int i = 1;
+                if (joinUpvotes) {
+                    stmt.setInt(i++, currentUserId);
+                }
+                stmt.setInt(i++, hikeId);
+                if (cursor != null) {
+                    for (int k = 0; k < 2; k++) {
+                        if (helpful) {
+                            stmt.setLong(i++, cursor.getKey());
+                        } else {
+                            stmt.setTimestamp(i++, new Timestamp(cursor.getKey()));
+                        }
                     }
+                    stmt.setInt(i++, cursor.getReviewId());
+                }
+                if (limit != null) {
+                    stmt.setInt(i++, limit + 1); // one extra row tells us whether there is a next page
+                }
 
-                    String createdAtStr = (createdAt != null)
-                            ? createdAt.toLocalDateTime().toString()
-                            : java.time.LocalDateTime.now().toString();
-
-                    ReviewResponse review = new ReviewResponse(
-                            reviewId, hikeId, userId, username, rating, comment,
-                            upvotes, createdAtStr, upvotedByCurrentUser
-                    );
+                ReviewCursor next = null;
+                long lastKey = 0; // sort key of the last review added
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (limit != null && reviews.size() == limit) {
+                            ReviewResponse last = reviews.get(reviews.size() - 1);
+                            next = new ReviewCursor(sort, lastKey, last.getId());
+                            break;
+                        }
+                        int reviewId = rs.getInt("review_id");
+                        int userId = rs.getInt("user_id");
+                        String username = rs.getString("username");
+                        double rating = rs.getDouble("rating");
+                        String comment = rs.getString("review_body");
+                        // Plus upvotes still buffered in UpvoteCounters (the cursor keeps the stored
+                        // value, since that is what the seek compares against)
+                        int storedUpvotes = rs.getInt("upvotes_count");
+                        int upvotes = (int) (storedUpvotes + UpvoteCounters.getInstance().pendingDelta(reviewId));
+                        Timestamp createdAt = rs.getTimestamp("created_at");
+                        boolean upvotedByCurrentUser = joinUpvotes
+                                ? rs.getBoolean("upvoted_by_current_user")
+                                : upvotedIds != null && UserUpvoteCache.contains(upvotedIds, reviewId);
+
+                        String createdAtStr = (createdAt != null)
+                                ? createdAt.toLocalDateTime().toString()
+                                : java.time.LocalDateTime.now().toString();
+
+                        ReviewResponse review = new ReviewResponse(
+                                reviewId, hikeId, userId, username, rating, comment,
+                                upvotes, createdAtStr, upvotedByCurrentUser
+                        );
+
+                        reviews.add(review);
+                        lastKey = helpful ? storedUpvotes : (createdAt != null ? createdAt.getTime() : 0L);
+                    }
+                }
+                double[] summary = readRatingSummary(conn, hikeId);
+                return new ReviewPage(reviews, next, summary[0], (int) summary[1]);
+            }
+        }
+    }
 
-                    reviews.add(review);
+    /** {avg_rating, review_count} from hike_stats; zeros when the hike has no row. */
+    private double[] readRatingSummary(Connection conn, int hikeId) throws SQLException {
+        String sql = "SELECT avg_rating, review_count FROM hike_stats WHERE hike_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, hikeId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new double[] { rs.getDouble("avg_rating"), rs.getInt("review_count") };
                 }
             }
         }
+        return new double[] { 0.0, 0 };
+    }
 
-        return reviews;
+    /**
+     * Every review id the user has upvoted, ascending (found through the user_id foreign key index).
+     */
+    private int[] loadUpvotedReviewIds(Connection conn, int userId) throws SQLException {
+        String sql = "SELECT review_id FROM review_upvotes WHERE user_id = ? ORDER BY review_id";
+        int[] ids = new int[16];
+        int count = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = rs.getInt(1);
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
     }
 
     public double getAverageRating(int hikeId) throws SQLException {
         String sql = "SELECT AVG(rating) as avg_rating FROM reviews WHERE hike_id = ?";
 
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, hikeId);
 
@@ -104,8 +270,8 @@ public class ReviewDao {
     public int getTotalReviews(int hikeId) throws SQLException {
         String sql = "SELECT COUNT(*) as total FROM reviews WHERE hike_id = ?";
 
-        Connection conn = DBConnector.getInstance().getConnection();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, hikeId);
 
@@ -119,10 +285,36 @@ public class ReviewDao {
         return 0;
     }
 
+    /**
+     * The hike a review belongs to, or null if the review does not exist.
+     */
+    public Integer getHikeIdForReview(int reviewId) throws SQLException {
+        String sql = "SELECT hike_id FROM reviews WHERE review_id = ?";
+
+        try (Connection conn = DBConnector.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, reviewId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("hike_id");
+                }
+            }
+        }
+
+        return null;
+    }
+
     public boolean hasUserUpvoted(int reviewId, int userId) throws SQLException {
+        try (Connection conn = DBConnector.getInstance().getConnection()) {
+            return hasUserUpvoted(conn, reviewId, userId);
+        }
+    }
+
+    private boolean hasUserUpvoted(Connection conn, int reviewId, int userId) throws SQLException {
         String sql = "SELECT COUNT(*) as count FROM review_upvotes WHERE review_id = ? AND user_id = ?";
 
-        Connection conn = DBConnector.getInstance().getConnection();
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, reviewId);
@@ -138,61 +330,123 @@ public class ReviewDao {
         return false;
     }
 
-    public int toggleUpvote(int reviewId, int userId) throws SQLException {
-        Connection conn = DBConnector.getInstance().getConnection();
+    // Deadlocks between concurrent toggles of the same upvote are retried this many times
+    private static final int TOGGLE_ATTEMPTS = 3;
+
+    // MySQL error codes: duplicate key, and a foreign key (review_id / user_id) with no parent row
+    private static final int ER_DUP_ENTRY = 1062;
+    private static final int ER_NO_REFERENCED_ROW = 1452;
+
+    /**
+     * Toggle userId's upvote on a review, or null if the review (or the user) does not exist.
+     *
+     * Relies on UNIQUE(review_id, user_id) instead of checking first: the INSERT adds the
+     * upvote unless it fails with a duplicate key, in which case it is deleted. Any other
+     * insert failure is not read as "already upvoted": a missing review or user (foreign
+     * key) returns null, anything else is thrown. If the DELETE then finds nothing, a
+     * concurrent toggle removed the upvote first, and the toggle starts over. The
+     * counter is then adjusted by the matching +1 / -1, and LAST_INSERT_ID(expr) hands
+     * the new value back with the UPDATE's result, so no re-SELECT is needed. Upvoting
+     * is two statements, removing an upvote three, in one transaction.
+     *
+     * With UpvoteCounters in write-behind mode the UPDATE is replaced by a plain read of
+     * the row, and the delta is buffered after commit.
+     */
+    public UpvoteResult toggleUpvote(int reviewId, int userId) throws SQLException {
+        try (Connection conn = DBConnector.getInstance().getConnection()) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return toggleUpvote(conn, reviewId, userId);
+                } catch (SQLTransactionRollbackException e) {
+                    if (attempt >= TOGGLE_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
 
+    private UpvoteResult toggleUpvote(Connection conn, int reviewId, int userId) throws SQLException {
         try {
             conn.setAutoCommit(false);
 
-            // Check if upvote exists (this uses the same shared connection, but does not close it)
-            boolean exists = hasUserUpvoted(reviewId, userId);
+            boolean upvoted;
+            String insertSql = "INSERT INTO review_upvotes (review_id, user_id) VALUES (?, ?)";
+            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                insertStmt.setInt(1, reviewId);
+                insertStmt.setInt(2, userId);
+                insertStmt.executeUpdate();
+                upvoted = true;
+            } catch (SQLException e) {
+                if (e.getErrorCode() == ER_NO_REFERENCED_ROW) {
+                    conn.rollback();
+                    return null; // no such review or user
+                }
+                if (e.getErrorCode() != ER_DUP_ENTRY) {
+                    throw e;
+                }
+                upvoted = false; // only the failed statement is rolled back; the transaction goes on
+            }
 
-            if (exists) {
-                // Remove upvote
+            if (!upvoted) {
+                // Already upvoted: remove it
                 String deleteSql = "DELETE FROM review_upvotes WHERE review_id = ? AND user_id = ?";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
                     deleteStmt.setInt(1, reviewId);
                     deleteStmt.setInt(2, userId);
-                    deleteStmt.executeUpdate();
-                }
-
-                // Decrement upvotes_count
-                String updateSql = "UPDATE reviews SET upvotes_count = upvotes_count - 1 WHERE review_id = ?";
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                    updateStmt.setInt(1, reviewId);
-                    updateStmt.executeUpdate();
-                }
-            } else {
-                // Add upvote
-                String insertSql = "INSERT INTO review_upvotes (review_id, user_id) VALUES (?, ?)";
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-                    insertStmt.setInt(1, reviewId);
-                    insertStmt.setInt(2, userId);
-                    insertStmt.executeUpdate();
+                    if (deleteStmt.executeUpdate() == 0) {
+                        // A concurrent toggle deleted it between our INSERT and DELETE; retried
+                        // by the caller, so the two toggles still add up
+                        throw new SQLTransactionRollbackException("Upvote changed by a concurrent toggle");
+                    }
                 }
+            }
 
-                // Increment upvotes_count
-                String updateSql = "UPDATE reviews SET upvotes_count = upvotes_count + 1 WHERE review_id = ?";
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                    updateStmt.setInt(1, reviewId);
-                    updateStmt.executeUpdate();
+            int delta = upvoted ? 1 : -1;
+            UpvoteCounters counters = UpvoteCounters.getInstance();
+            if (counters.isWriteBehind()) {
+                // Leave the reviews row alone (no row lock for hot reviews): read it without
+                // locking and let UpvoteCounters apply the delta in its next batch
+                String readSql = "SELECT upvotes_count, hike_id FROM reviews WHERE review_id = ?";
+                int stored;
+                int hikeId;
+                try (PreparedStatement readStmt = conn.prepareStatement(readSql)) {
+                    readStmt.setInt(1, reviewId);
+                    try (ResultSet rs = readStmt.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return null; // no such review
+                        }
+                        stored = rs.getInt("upvotes_count");
+                        hikeId = rs.getInt("hike_id");
+                    }
                 }
+                conn.commit();
+                counters.record(reviewId, delta);
+                UserUpvoteCache.getInstance().toggled(userId, reviewId, upvoted);
+                return new UpvoteResult((int) (stored + counters.pendingDelta(reviewId)), upvoted, hikeId);
             }
 
-            conn.commit();
-
-            // Get updated upvotes count
-            String countSql = "SELECT upvotes_count FROM reviews WHERE review_id = ?";
-            try (PreparedStatement countStmt = conn.prepareStatement(countSql)) {
-                countStmt.setInt(1, reviewId);
-                try (ResultSet rs = countStmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getInt("upvotes_count");
+            String updateSql = "UPDATE reviews SET upvotes_count = LAST_INSERT_ID(upvotes_count + ?) WHERE review_id = ?";
+            int upvotes = 0;
+            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql, Statement.RETURN_GENERATED_KEYS)) {
+                updateStmt.setInt(1, delta);
+                updateStmt.setInt(2, reviewId);
+                if (updateStmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return null; // no such review
+                }
+                // The driver reports LAST_INSERT_ID as a generated key; a new count of 0 reports none
+                try (ResultSet keys = updateStmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        upvotes = keys.getInt(1);
                     }
                 }
             }
 
-            return 0;
+            conn.commit();
+            UserUpvoteCache.getInstance().toggled(userId, reviewId, upvoted);
+            return new UpvoteResult(upvotes, upvoted, null);
 
         } catch (SQLException e) {
             conn.rollback();
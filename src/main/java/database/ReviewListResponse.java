@@ -7,6 +7,7 @@ public class ReviewListResponse {
     private double averageRating;
     private int totalReviews;
     private List<ReviewResponse> reviews;
+    private String nextCursor; // only set when another page follows (limit/cursor requests)
 
     public ReviewListResponse() {
     }
@@ -50,5 +51,13 @@ public class ReviewListResponse {
     public void setReviews(List<ReviewResponse> reviews) {
         this.reviews = reviews;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
 
@@ -0,0 +1,38 @@
+package database;
+
+import java.util.List;
+
+/**
+ * One page of a hike's reviews and the cursor for the next page (null on the last page),
+ * with the hike's rating summary from hike_stats.
+ */
+public class ReviewPage {
+    private final List<ReviewResponse> reviews;
+    private final ReviewCursor nextCursor;
+    private final double averageRating;
+    private final int totalReviews;
+
+    public ReviewPage(List<ReviewResponse> reviews, ReviewCursor nextCursor,
+                      double averageRating, int totalReviews) {
+        this.reviews = reviews;
+        this.nextCursor = nextCursor;
+        this.averageRating = averageRating;
+        this.totalReviews = totalReviews;
+    }
+
+    public List<ReviewResponse> getReviews() {
+        return reviews;
+    }
+
+    public ReviewCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    public int getTotalReviews() {
+        return totalReviews;
+    }
+}
@@ -0,0 +1,254 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer for reviews.upvotes_count.
+ *
+ * Toggling an upvote adds +1 / -1 to a per-review LongAdder instead of updating the
+ * reviews row, so concurrent upvoters of a popular review no longer queue on its row
+ * lock. A background task moves the accumulated deltas into the table every flush
+ * interval, with one UPDATE per batch of reviews. Readers add pendingDelta() to the
+ * stored count.
+ *
+ * Deltas not yet flushed are lost if the process dies. That is bounded by time (the
+ * flush interval) and by size: once maxPendingDeltas toggles are waiting, a flush is
+ * started right away. A failed flush puts its deltas (and its toggle count) back for
+ * the next attempt.
+ *
+ * While the database is unreachable neither bound holds: after a failed flush, early
+ * flushes are suspended and the next attempt is the next scheduled tick, so an outage
+ * is retried once per interval rather than back to back. Deltas keep accumulating in
+ * the meantime, and everything recorded since the last successful flush is at risk.
+ * Memory still grows with the number of distinct reviews toggled, not with toggles.
+ *
+ * While a batch is being written, readers see it through the in-flight map, so for
+ * the duration of that commit a count can briefly be off by the batch's delta.
+ *
+ * Settings (system properties):
+ *  - hikes.upvotes.flushMillis        (default 1000; 0 disables write-behind and toggles
+ *                                      update the row directly)
+ *  - hikes.upvotes.maxPendingDeltas   (default 10000)
+ */
+public class UpvoteCounters {
+
+    private static final UpvoteCounters INSTANCE = new UpvoteCounters(
+            Long.getLong("hikes.upvotes.flushMillis", 1000),
+            Long.getLong("hikes.upvotes.maxPendingDeltas", 10_000));
+
+    // Reviews per UPDATE statement
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final long flushMillis;
+    private final long maxPendingDeltas;
+
+    // Recorders share the read lock; a flush takes the write lock only to swap maps
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile ConcurrentHashMap<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    // The batch being written; readers still count it until the flush has committed
+    private volatile ConcurrentHashMap<Integer, LongAdder> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder pendingCount = new LongAdder();
+
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    // Set by a failed flush, cleared by a successful one; suspends size-triggered flushes
+    private volatile boolean failing;
+    private final ScheduledExecutorService flusher;
+
+    UpvoteCounters(long flushMillis, long maxPendingDeltas) {
+        this.flushMillis = flushMillis;
+        this.maxPendingDeltas = maxPendingDeltas;
+        if (flushMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "upvote-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    public static UpvoteCounters getInstance() {
+        return INSTANCE;
+    }
+
+    /** False when toggles should update reviews.upvotes_count in their own transaction. */
+    public boolean isWriteBehind() {
+        return flushMillis > 0;
+    }
+
+    /**
+     * Buffer a change to a review's upvote count. Call after the review_upvotes change
+     * it reflects has committed.
+     */
+    public void record(int reviewId, int delta) {
+        add(reviewId, delta);
+    }
+
+    private void add(int reviewId, long delta) {
+        merge(reviewId, delta);
+        pendingCount.increment();
+        if (pendingCount.sum() >= maxPendingDeltas && !failing && flusher != null && !flusher.isShutdown()
+                && flushQueued.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void merge(int reviewId, long delta) {
+        ReentrantReadWriteLock.ReadLock lock = swapLock.readLock();
+        lock.lock();
+        try {
+            pending.computeIfAbsent(reviewId, id -> new LongAdder()).add(delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Upvotes recorded for a review but not yet in reviews.upvotes_count.
+     */
+    public long pendingDelta(int reviewId) {
+        // Read pending before inFlight: a flush publishes inFlight first, so if the swap
+        // happened in between, both are the same map and it is counted once
+        ConcurrentHashMap<Integer, LongAdder> current = pending;
+        ConcurrentHashMap<Integer, LongAdder> writing = inFlight;
+        long delta = sum(current.get(reviewId));
+        if (writing != current) {
+            delta += sum(writing.get(reviewId));
+        }
+        return delta;
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * Write every pending delta to the table. Runs on the flusher thread, and once more
+     * on shutdown.
+     */
+    synchronized void flush() throws SQLException {
+        flushQueued.set(false);
+        ConcurrentHashMap<Integer, LongAdder> batch;
+        long batchToggles;
+        ReentrantReadWriteLock.WriteLock lock = swapLock.writeLock();
+        lock.lock();
+        try {
+            batch = pending;
+            inFlight = batch;
+            pending = new ConcurrentHashMap<>();
+            batchToggles = pendingCount.sumThenReset();
+        } finally {
+            lock.unlock();
+        }
+
+        // Sorted, so concurrent writers of the same rows lock them in the same order
+        TreeMap<Integer, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> e : batch.entrySet()) {
+            long delta = e.getValue().sum();
+            if (delta != 0) {
+                deltas.put(e.getKey(), delta);
+            }
+        }
+        try {
+            if (!deltas.isEmpty()) {
+                write(deltas);
+            }
+            failing = false;
+        } catch (SQLException e) {
+            // Keep the deltas for the next scheduled attempt, without triggering an early one
+            failing = true;
+            for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+                merge(d.getKey(), d.getValue());
+            }
+            pendingCount.add(batchToggles);
+            throw e;
+        } finally {
+            inFlight = new ConcurrentHashMap<>();
+        }
+    }
+
+    private void write(TreeMap<Integer, Long> deltas) throws SQLException {
+        List<Map.Entry<Integer, Long>> entries = new ArrayList<>(deltas.entrySet());
+        try (Connection conn = DBConnector.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < entries.size(); from += FLUSH_BATCH_SIZE) {
+                    List<Map.Entry<Integer, Long>> chunk = entries.subList(from, Math.min(entries.size(), from + FLUSH_BATCH_SIZE));
+                    // UPDATE reviews SET upvotes_count = upvotes_count + CASE review_id WHEN ? THEN ? ... END
+                    // WHERE review_id IN (?, ...)
+                    StringBuilder sql = new StringBuilder("UPDATE reviews SET upvotes_count = upvotes_count + CASE review_id");
+                    for (int i = 0; i < chunk.size(); i++) {
+                        sql.append(" WHEN ? THEN ?");
+                    }
+                    sql.append(" ELSE 0 END WHERE review_id IN (");
+                    for (int i = 0; i < chunk.size(); i++) {
+                        sql.append(i == 0 ? "?" : ", ?");
+                    }
+                    sql.append(")");
+
+                    try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                        int p = 1;
+                        for (Map.Entry<Integer, Long> e : chunk) {
+                            stmt.setInt(p++, e.getKey());
+                            stmt.setLong(p++, e.getValue());
+                        }
+                        for (Map.Entry<Integer, Long> e : chunk) {
+                            stmt.setInt(p++, e.getKey());
+                        }
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("UpvoteCounters: Flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the flusher and write what is left. Called when the webapp is undeployed,
+     * before the connection pool is closed.
+     */
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.err.println("UpvoteCounters: Final flush failed, pending upvote counts lost: " + e.getMessage());
+        }
+    }
+}
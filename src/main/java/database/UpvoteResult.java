@@ -0,0 +1,29 @@
+package database;
+
+/**
+ * Outcome of toggling an upvote: the review's new upvote count, whether the
+ * user's upvote is now present, and the review's hike when it was read anyway.
+ */
+public class UpvoteResult {
+    private final int upvotes;
+    private final boolean upvoted;
+    private final Integer hikeId; // null if the toggle didn't read it
+
+    public UpvoteResult(int upvotes, boolean upvoted, Integer hikeId) {
+        this.upvotes = upvotes;
+        this.upvoted = upvoted;
+        this.hikeId = hikeId;
+    }
+
+    public int getUpvotes() {
+        return upvotes;
+    }
+
+    public boolean isUpvoted() {
+        return upvoted;
+    }
+
+    public Integer getHikeId() {
+        return hikeId;
+    }
+}
@@ -0,0 +1,136 @@
+package database;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-user set of upvoted review ids, so review listings can fill in
+ * upvotedByCurrentUser in memory instead of joining review_upvotes for every page.
+ *
+ * Each user's set is a sorted int[] (4 bytes per upvote, binary-searched), loaded on
+ * first use by ReviewDao and patched by toggleUpvote afterwards. Arrays are never
+ * modified in place, so a reader can keep using the one it got. Users are evicted
+ * least recently used first once the total exceeds the byte budget.
+ *
+ * A load that races with a toggle of the same user could store a set read before the
+ * toggle committed; each load notes its user's stripe counter first and is discarded
+ * if a toggle bumped it meanwhile.
+ *
+ * Settings (system properties):
+ *  - hikes.upvotes.userCacheBytes   (default 8 MB, 0 disables the cache)
+ */
+public class UserUpvoteCache {
+
+    private static final UserUpvoteCache INSTANCE =
+            new UserUpvoteCache(Long.getLong("hikes.upvotes.userCacheBytes", 8L * 1024 * 1024));
+
+    // Rough per-user cost on top of the array itself (map entry, array header, key)
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int STRIPES = 64;
+
+    private final long budgetBytes;
+    private long usedBytes; // guarded by this
+
+    // Access-ordered, so iteration starts at the least recently used user. Guarded by this.
+    private final LinkedHashMap<Integer, int[]> sets = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES);
+
+    UserUpvoteCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    public static UserUpvoteCache getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return budgetBytes > 0;
+    }
+
+    /** The user's upvoted review ids (sorted), or null if not loaded. */
+    public synchronized int[] get(int userId) {
+        return sets.get(userId);
+    }
+
+    /** Call before reading a user's upvotes from the database; pass the result to put(). */
+    public long loadStamp(int userId) {
+        return stripes.get(stripe(userId));
+    }
+
+    /**
+     * Store a freshly loaded sorted set, unless a toggle for this user's stripe happened
+     * since loadStamp() or the set alone would take more than a quarter of the budget.
+     */
+    public synchronized void put(int userId, int[] sortedReviewIds, long stamp) {
+        long size = sizeOf(sortedReviewIds);
+        if (size > budgetBytes / 4 || stripes.get(stripe(userId)) != stamp) {
+            return;
+        }
+        int[] old = sets.put(userId, sortedReviewIds);
+        if (old != null) {
+            usedBytes -= sizeOf(old);
+        }
+        usedBytes += size;
+        evictOverBudget();
+    }
+
+    /**
+     * Apply a committed toggle to the user's set, if it is loaded. A set that grows
+     * past a quarter of the budget is dropped, as put() would refuse it.
+     */
+    public synchronized void toggled(int userId, int reviewId, boolean upvoted) {
+        stripes.incrementAndGet(stripe(userId));
+        int[] set = sets.get(userId);
+        if (set == null) {
+            return;
+        }
+        int pos = Arrays.binarySearch(set, reviewId);
+        int[] updated;
+        if (upvoted && pos < 0) {
+            int at = -pos - 1;
+            updated = new int[set.length + 1];
+            System.arraycopy(set, 0, updated, 0, at);
+            updated[at] = reviewId;
+            System.arraycopy(set, at, updated, at + 1, set.length - at);
+        } else if (!upvoted && pos >= 0) {
+            updated = new int[set.length - 1];
+            System.arraycopy(set, 0, updated, 0, pos);
+            System.arraycopy(set, pos + 1, updated, pos, set.length - pos - 1);
+        } else {
+            return;
+        }
+        if (sizeOf(updated) > budgetBytes / 4) {
+            sets.remove(userId);
+            usedBytes -= sizeOf(set);
+            return;
+        }
+        sets.put(userId, updated);
+        usedBytes += sizeOf(updated) - sizeOf(set);
+        evictOverBudget();
+    }
+
+    // Drop least recently used users until the total fits the budget. Caller holds this.
+    private void evictOverBudget() {
+        Iterator<Map.Entry<Integer, int[]>> lru = sets.entrySet().iterator();
+        while (usedBytes > budgetBytes && lru.hasNext()) {
+            Map.Entry<Integer, int[]> eldest = lru.next();
+            usedBytes -= sizeOf(eldest.getValue());
+            lru.remove();
+        }
+    }
+
+    public static boolean contains(int[] sortedReviewIds, int reviewId) {
+        return Arrays.binarySearch(sortedReviewIds, reviewId) >= 0;
+    }
+
+    private static long sizeOf(int[] set) {
+        return ENTRY_OVERHEAD_BYTES + 4L * set.length;
+    }
+
+    private static int stripe(int userId) {
+        return Math.floorMod(userId, STRIPES);
+    }
+}
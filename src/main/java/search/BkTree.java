@@ -0,0 +1,116 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BK-tree of words under Levenshtein distance, for fuzzy=true searches.
+ *
+ * Children are keyed by their distance to the parent, so a lookup within distance
+ * d of a query only descends into children keyed parent-distance ± d (triangle
+ * inequality) instead of comparing against every word.
+ *
+ * Words are never removed; callers check that a returned word is still in use.
+ * Not thread-safe; HikeSearchIndex guards it with its read/write lock.
+ */
+class BkTree {
+
+    private Node root;
+    private int size;
+
+    private static final class Node {
+        final String word;
+        final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    /** A word found by search() and its distance from the query. */
+    static final class Match {
+        final String word;
+        final int distance;
+
+        Match(String word, int distance) {
+            this.word = word;
+            this.distance = distance;
+        }
+    }
+
+    void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int d = distance(word, node.word);
+            if (d == 0) {
+                return; // already present
+            }
+            Node child = node.children.get(d);
+            if (child == null) {
+                node.children.put(d, new Node(word));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Every word within maxDistance edits of query.
+     */
+    List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int d = distance(query, node.word);
+            if (d <= maxDistance) {
+                matches.add(new Match(node.word, d));
+            }
+            for (int k = Math.max(1, d - maxDistance); k <= d + maxDistance; k++) {
+                Node child = node.children.get(k);
+                if (child != null) {
+                    pending.add(child);
+                }
+            }
+        }
+        return matches;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Levenshtein distance (insertions, deletions and substitutions).
+     */
+    static int distance(String a, String b) {
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return prev[b.length()];
+    }
+}
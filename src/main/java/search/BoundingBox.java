@@ -0,0 +1,85 @@
+package search;
+
+/**
+ * A latitude/longitude rectangle in degrees. Never crosses the antimeridian:
+ * west is always at or below east.
+ */
+public class BoundingBox {
+
+    // Kilometres per degree of latitude (and of longitude at the equator)
+    private static final double KM_PER_DEGREE = GeoMath.EARTH_RADIUS_KM * Math.PI / 180;
+
+    private final double west;
+    private final double south;
+    private final double east;
+    private final double north;
+
+    public BoundingBox(double west, double south, double east, double north) {
+        if (south < -90 || north > 90 || south > north) {
+            throw new IllegalArgumentException("bbox latitudes must satisfy -90 <= south <= north <= 90");
+        }
+        if (west < -180 || east > 180 || west > east) {
+            throw new IllegalArgumentException("bbox longitudes must satisfy -180 <= west <= east <= 180");
+        }
+        this.west = west;
+        this.south = south;
+        this.east = east;
+        this.north = north;
+    }
+
+    /**
+     * Parse "west,south,east,north" (the order used by most map libraries).
+     */
+    public static BoundingBox parse(String s) {
+        String[] parts = s.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("bbox must be west,south,east,north");
+        }
+        return new BoundingBox(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()),
+                Double.parseDouble(parts[2].trim()), Double.parseDouble(parts[3].trim()));
+    }
+
+    /**
+     * Smallest box containing the circle of radiusKm around (lat, lon). Near the
+     * poles or for very large radii the longitude range widens to the full globe.
+     * Longitudes are clamped rather than wrapped, so a circle crossing the
+     * antimeridian is cut off there.
+     */
+    public static BoundingBox around(double lat, double lon, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double south = Math.max(-90, lat - dLat);
+        double north = Math.min(90, lat + dLat);
+
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+        double dLon = cosLat > 1e-9 ? radiusKm / (KM_PER_DEGREE * cosLat) : 360;
+        if (dLon >= 180) {
+            return new BoundingBox(-180, south, 180, north);
+        }
+        return new BoundingBox(Math.max(-180, lon - dLon), south, Math.min(180, lon + dLon), north);
+    }
+
+    public boolean contains(double lat, double lon) {
+        return lat >= south && lat <= north && lon >= west && lon <= east;
+    }
+
+    public double getWest() {
+        return west;
+    }
+
+    public double getSouth() {
+        return south;
+    }
+
+    public double getEast() {
+        return east;
+    }
+
+    public double getNorth() {
+        return north;
+    }
+
+    @Override
+    public String toString() {
+        return west + "," + south + "," + east + "," + north;
+    }
+}
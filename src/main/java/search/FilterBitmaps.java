@@ -0,0 +1,198 @@
+package search;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Bitmap index over the numeric /api/hikes filters, part of HikeSearchIndex.
+ *
+ * Each difficulty tier, distance band and rating band has a BitSet of hike ids, so
+ * combined filters are ANDs/ORs of bitsets and facet counts are cardinalities of
+ * the same bitsets. min/max values that fall inside a band only need that band's
+ * hikes checked one by one.
+ *
+ * Not thread-safe; HikeSearchIndex guards it with its read/write lock.
+ */
+class FilterBitmaps {
+
+    // Same tiers and ±0.1 window as SearchCriteria / the SQL path
+    static final String[] DIFFICULTY_LABELS = { "Easy", "Moderate", "Hard", "Expert" };
+    static final double[] DIFFICULTY_VALUES = { 1.0, 2.5, 4.0, 5.0 };
+    private static final double DIFFICULTY_WINDOW = 0.1;
+
+    // Band i covers [BOUNDS[i], BOUNDS[i + 1]); the last band has no upper bound
+    static final double[] DISTANCE_BOUNDS = { 0, 3, 6, 10, 15 };
+    static final String[] DISTANCE_LABELS = { "0-3", "3-6", "6-10", "10-15", "15+" };
+    static final double[] RATING_BOUNDS = { 0, 1, 2, 3, 4 };
+    static final String[] RATING_LABELS = { "0-1", "1-2", "2-3", "3-4", "4-5" };
+
+    final BitSet all = new BitSet();
+    private final BitSet[] difficulty = newBitSets(DIFFICULTY_VALUES.length);
+    private final BitSet[] distance = newBitSets(DISTANCE_BOUNDS.length);
+    private final BitSet[] rating = newBitSets(RATING_BOUNDS.length);
+
+    void add(int hikeId, double difficultyValue, double distanceValue, double ratingValue) {
+        all.set(hikeId);
+        int tier = difficultyTier(difficultyValue);
+        if (tier >= 0) {
+            difficulty[tier].set(hikeId);
+        }
+        distance[band(DISTANCE_BOUNDS, distanceValue)].set(hikeId);
+        rating[band(RATING_BOUNDS, ratingValue)].set(hikeId);
+    }
+
+    void remove(int hikeId) {
+        all.clear(hikeId);
+        for (BitSet b : difficulty) b.clear(hikeId);
+        for (BitSet b : distance) b.clear(hikeId);
+        for (BitSet b : rating) b.clear(hikeId);
+    }
+
+    // -----------------------------
+    // Filters
+    // -----------------------------
+
+    /**
+     * Hikes passing criteria's difficulty, length and rating filters, or null when
+     * none of those is set. exactDistance / exactRating check a single hike and are
+     * only called for hikes in bands the range cuts through.
+     */
+    BitSet filter(SearchCriteria criteria, IntPredicate exactDistance, IntPredicate exactRating) {
+        BitSet result = null;
+        result = and(result, difficultyFilter(criteria));
+        result = and(result, distanceFilter(criteria, exactDistance));
+        result = and(result, ratingFilter(criteria, exactRating));
+        return result;
+    }
+
+    private BitSet difficultyFilter(SearchCriteria criteria) {
+        if (criteria.getDifficulty() == null) {
+            return null;
+        }
+        int tier = difficultyTier(criteria.getDifficulty());
+        return tier >= 0 ? difficulty[tier] : new BitSet();
+    }
+
+    private BitSet distanceFilter(SearchCriteria criteria, IntPredicate exact) {
+        if (criteria.getMinLength() == null && criteria.getMaxLength() == null) {
+            return null;
+        }
+        return rangeFilter(distance, DISTANCE_BOUNDS, criteria.getMinLength(), criteria.getMaxLength(), exact);
+    }
+
+    private BitSet ratingFilter(SearchCriteria criteria, IntPredicate exact) {
+        if (!criteria.hasMinRatingFilter()) {
+            return null;
+        }
+        return rangeFilter(rating, RATING_BOUNDS, criteria.getMinRating(), null, exact);
+    }
+
+    /**
+     * Hikes with value between min and max inclusive (either may be null): bands entirely
+     * inside the range are OR'd in whole, bands it cuts through are checked per hike.
+     */
+    private static BitSet rangeFilter(BitSet[] bands, double[] bounds, Double min, Double max, IntPredicate exact) {
+        BitSet result = new BitSet();
+        for (int i = 0; i < bands.length; i++) {
+            // The first band also holds anything below bounds[0]
+            double lo = (i == 0) ? Double.NEGATIVE_INFINITY : bounds[i];
+            double hi = (i + 1 < bounds.length) ? bounds[i + 1] : Double.POSITIVE_INFINITY;
+            // Band i (values in [lo, hi)) misses the range entirely
+            if ((min != null && hi <= min) || (max != null && lo > max)) {
+                continue;
+            }
+            boolean covered = (min == null || lo >= min) && (max == null || hi <= max);
+            if (covered) {
+                result.or(bands[i]);
+            } else {
+                BitSet band = bands[i];
+                for (int id = band.nextSetBit(0); id >= 0; id = band.nextSetBit(id + 1)) {
+                    if (exact.test(id)) {
+                        result.set(id);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // -----------------------------
+    // Facets
+    // -----------------------------
+
+    /**
+     * Per-bucket counts among matches (hikes matching q and location). Each facet applies
+     * every other facet's filter but not its own, so the counts say how many results
+     * picking that bucket instead would give.
+     */
+    Map<String, Map<String, Integer>> facetCounts(BitSet matches, SearchCriteria criteria,
+                                                  IntPredicate exactDistance, IntPredicate exactRating) {
+        BitSet byDifficulty = difficultyFilter(criteria);
+        BitSet byDistance = distanceFilter(criteria, exactDistance);
+        BitSet byRating = ratingFilter(criteria, exactRating);
+
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("difficulty", counts(difficulty, DIFFICULTY_LABELS, and(and(copy(matches), byDistance), byRating)));
+        facets.put("distance", counts(distance, DISTANCE_LABELS, and(and(copy(matches), byDifficulty), byRating)));
+        facets.put("rating", counts(rating, RATING_LABELS, and(and(copy(matches), byDifficulty), byDistance)));
+        return facets;
+    }
+
+    private static Map<String, Integer> counts(BitSet[] buckets, String[] labels, BitSet base) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            BitSet bucket = (BitSet) buckets[i].clone();
+            bucket.and(base);
+            counts.put(labels[i], bucket.cardinality());
+        }
+        return counts;
+    }
+
+    // -----------------------------
+    // Helpers
+    // -----------------------------
+
+    private static int difficultyTier(double value) {
+        for (int i = 0; i < DIFFICULTY_VALUES.length; i++) {
+            if (Math.abs(value - DIFFICULTY_VALUES[i]) <= DIFFICULTY_WINDOW) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int band(double[] bounds, double value) {
+        for (int i = bounds.length - 1; i > 0; i--) {
+            if (value >= bounds[i]) {
+                return i;
+            }
+        }
+        return 0; // also negative values
+    }
+
+    /** a AND b, where null means "no filter". May modify a. */
+    private static BitSet and(BitSet a, BitSet b) {
+        if (b == null) {
+            return a;
+        }
+        if (a == null) {
+            return copy(b);
+        }
+        a.and(b);
+        return a;
+    }
+
+    private static BitSet copy(BitSet b) {
+        return (BitSet) b.clone();
+    }
+
+    private static BitSet[] newBitSets(int n) {
+        BitSet[] sets = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            sets[i] = new BitSet();
+        }
+        return sets;
+    }
+}
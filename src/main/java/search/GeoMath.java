@@ -0,0 +1,32 @@
+package search;
+
+/**
+ * Great-circle distance helpers shared by the SQL and in-memory search paths.
+ */
+public final class GeoMath {
+
+    // Same sphere as MySQL's ST_Distance_Sphere default (6370986 m), so both paths agree
+    public static final double EARTH_RADIUS_KM = 6370.986;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Haversine distance in kilometres between two points given in degrees.
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Round to metres for responses (null stays null).
+     */
+    public static Double roundKm(Double km) {
+        return km != null ? Math.round(km * 1000) / 1000.0 : null;
+    }
+}
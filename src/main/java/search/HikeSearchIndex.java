@@ -0,0 +1,708 @@
+package search;
+
+import database.Hike;
+import database.HikeDao;
+import database.HikeRecord;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-process search engine for /api/hikes.
+ *
+ * Loads every hike (with its hike_stats aggregates) at startup and keeps:
+ *  - an inverted index of name / location_text / description words (sorted, so
+ *    "pea" can prefix-match "peak" like the FULLTEXT "+pea*" query does)
+ *  - a trigram index over name / location_text for the substring fallback
+ *  - a lat/lon grid (GRID_CELL_DEGREES cells) for bbox / radius_km searches
+ *  - bitmaps over difficulty / distance / rating (FilterBitmaps) for filters and facet counts
+ *  - a prefix trie over names and locations (SuggestTrie) for /api/hikes/suggest
+ *  - a BK-tree of hike name words (BkTree) for fuzzy=true searches
+ *
+ * Writers report changes through SearchUpdates, which calls refreshHike(), so the
+ * index stays current without a reload. SearchServlet only uses it when enabled (-Dhikes.search.useIndex=true
+ * or the admin endpoint); otherwise the SQL path is used.
+ */
+public class HikeSearchIndex {
+
+    private static final HikeSearchIndex INSTANCE = new HikeSearchIndex();
+
+    // Field bits stored per (word, hike) posting; also used as relevance weights
+    private static final int FIELD_DESCRIPTION = 1;
+    private static final int FIELD_LOCATION = 2;
+    private static final int FIELD_NAME = 4;
+
+    // Location grid: cells of 0.5 x 0.5 degrees (about 55 km north-south). A box
+    // spanning more cells than GRID_MAX_CELLS is answered by scanning every hike instead.
+    private static final double GRID_CELL_DEGREES = 0.5;
+    private static final int GRID_COLUMNS = (int) (360 / GRID_CELL_DEGREES) + 1;
+    private static final int GRID_MAX_CELLS = 10_000;
+
+    private final HikeDao hikeDao = new HikeDao();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IndexData data = new IndexData(); // guarded by lock
+    private volatile boolean enabled = Boolean.getBoolean("hikes.search.useIndex");
+    private volatile boolean ready = false;
+    private volatile long lastRebuildMillis = 0;
+
+    // refreshHike() holds its hike's stripe across the read and the update, so two
+    // refreshes of one hike apply in the order they read MySQL
+    private static final int REFRESH_STRIPES = 64;
+    private final Object[] refreshLocks = new Object[REFRESH_STRIPES];
+
+    // Hikes refreshed while a rebuild was reading MySQL; replayed after the swap
+    private final Set<Integer> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding = false;
+
+    private HikeSearchIndex() {
+        for (int i = 0; i < REFRESH_STRIPES; i++) {
+            refreshLocks[i] = new Object();
+        }
+    }
+
+    public static HikeSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // -----------------------------
+    // Loading / maintenance
+    // -----------------------------
+
+    /**
+     * Reload everything from MySQL. The new index is built off to the side and
+     * swapped in, so searches keep running against the old one meanwhile.
+     * Returns the number of hikes indexed.
+     */
+    public synchronized int rebuild() throws SQLException {
+        List<HikeRecord> records;
+        IndexData fresh = new IndexData();
+        rebuilding = true;
+        try {
+            records = hikeDao.findAllRecords();
+            for (HikeRecord record : records) {
+                fresh.add(new Doc(record));
+            }
+
+            lock.writeLock().lock();
+            try {
+                data = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } finally {
+            rebuilding = false;
+        }
+
+        // Writes that landed while we were loading may be missing from the snapshot
+        for (Integer hikeId : changedDuringRebuild) {
+            changedDuringRebuild.remove(hikeId);
+            refreshHike(hikeId);
+        }
+        lastRebuildMillis = System.currentTimeMillis();
+        System.out.println("HikeSearchIndex: Indexed " + records.size() + " hikes");
+        return records.size();
+    }
+
+    /**
+     * Re-read one hike (new hike, new review, new photo) and update the index in place.
+     * Failures are logged rather than thrown: the write that triggered this has already
+     * committed, and the next rebuild will pick the change up.
+     *
+     * Concurrent refreshes of the same hike are serialized from the read to the update;
+     * otherwise a refresh that read the older row could be applied last and keep it.
+     */
+    public void refreshHike(int hikeId) {
+        if (rebuilding) {
+            changedDuringRebuild.add(hikeId);
+        }
+        if (!ready) {
+            return;
+        }
+        try {
+            synchronized (refreshLocks[Math.floorMod(hikeId, REFRESH_STRIPES)]) {
+                HikeRecord record = hikeDao.findRecordById(hikeId);
+                lock.writeLock().lock();
+                try {
+                    data.remove(hikeId);
+                    if (record != null) {
+                        data.add(new Doc(record));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("HikeSearchIndex: Failed to refresh hike " + hikeId + ": " + e.getMessage());
+        }
+    }
+
+    // -----------------------------
+    // Toggle / status
+    // -----------------------------
+
+    /**
+     * True when SearchServlet should answer from the index instead of MySQL.
+     */
+    public boolean isServing() {
+        return enabled && ready;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getLastRebuildMillis() {
+        return lastRebuildMillis;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return data.docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // -----------------------------
+    // Search
+    // -----------------------------
+
+    /**
+     * Same semantics as SearchServlet.executeSearch, answered from memory.
+     */
+    public SearchPage search(SearchCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            Candidates found = candidates(criteria);
+            Map<Integer, Integer> scores = found.scores;
+
+            // Difficulty / length / rating filters as one bitmap; without q or a location
+            // it also picks the candidates, so only matching hikes are visited
+            BitSet filter = data.bitmaps.filter(criteria, exactDistance(criteria), exactRating(criteria));
+            Collection<Doc> candidates = found.docs;
+            if (candidates == null) {
+                candidates = filter != null ? docsFor(filter) : data.docs.values();
+            }
+
+            SearchCursor cursor = criteria.getCursor();
+            // hikeId -> km from lat/lon (null for hikes without coordinates)
+            Map<Integer, Double> distances = criteria.hasOrigin() ? new HashMap<>() : null;
+            List<Doc> matches = new ArrayList<>();
+            for (Doc doc : candidates) {
+                if (filter != null && !filter.get(doc.record.getHikeId())) {
+                    continue;
+                }
+                if (!insideBox(doc, criteria) || (cursor != null && !isAfter(doc, cursor))) {
+                    continue;
+                }
+                if (distances != null) {
+                    Double km = distanceKm(doc, criteria);
+                    if (!withinRadius(km, criteria)) {
+                        continue;
+                    }
+                    distances.put(doc.record.getHikeId(), km);
+                }
+                matches.add(doc);
+            }
+
+            Comparator<Doc> order = Comparator
+                    .comparingDouble((Doc d) -> d.record.getAverageRating()).reversed()
+                    .thenComparing(Comparator.comparingLong((Doc d) -> d.createdAt).reversed())
+                    .thenComparing(Comparator.comparingInt((Doc d) -> d.record.getHikeId()).reversed());
+            if (criteria.isFuzzy() && !criteria.sortByDistance()) {
+                // Closest spelling first
+                Map<Integer, Integer> edits = found.edits;
+                order = Comparator.comparingInt((Doc d) -> edits.get(d.record.getHikeId()))
+                        .thenComparing(order);
+            } else if (criteria.sortByRelevance()) {
+                Map<Integer, Integer> relevance = scores;
+                order = Comparator.comparingInt((Doc d) -> relevance.get(d.record.getHikeId())).reversed()
+                        .thenComparing(order);
+            } else if (criteria.sortByDistance()) {
+                // Nearest first, hikes without coordinates last (like ORDER BY distance_km IS NULL, distance_km)
+                Map<Integer, Double> km = distances;
+                order = Comparator.comparing((Doc d) -> km.get(d.record.getHikeId()),
+                        Comparator.nullsLast(Comparator.<Double>naturalOrder()))
+                        .thenComparing(order);
+            }
+            matches.sort(order);
+
+            int end = criteria.isPaged() ? Math.min(criteria.getLimit(), matches.size()) : matches.size();
+            List<Hike> hikes = new ArrayList<>(end);
+            for (Doc doc : matches.subList(0, end)) {
+                if (distances != null) {
+                    // Doc.hike is shared between requests; distance is per request, so copy
+                    Hike hike = doc.record.toHike();
+                    hike.setDistance_km(GeoMath.roundKm(distances.get(doc.record.getHikeId())));
+                    hikes.add(hike);
+                } else {
+                    hikes.add(doc.hike);
+                }
+            }
+
+            String nextCursor = null;
+            if (end < matches.size() && end > 0 && !criteria.sortByRelevance() && !criteria.sortByDistance()
+                    && !criteria.isFuzzy()) {
+                Doc last = matches.get(end - 1);
+                nextCursor = new SearchCursor(BigDecimal.valueOf(last.record.getAverageRating()),
+                        last.createdAt, last.record.getHikeId()).encode();
+            }
+            SearchPage page = new SearchPage(hikes, nextCursor);
+            if (criteria.wantsFacets()) {
+                page.setFacets(facetCounts(criteria, found));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Facet counts for criteria, for results served from SQL. Only meaningful once
+     * the index is ready.
+     */
+    public Map<String, Map<String, Integer>> facets(SearchCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            return facetCounts(criteria, candidates(criteria));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit name / location completions of prefix, most reviewed first.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Suggestion> suggestions = new ArrayList<>();
+            for (SuggestTrie.Entry e : data.suggest.complete(prefix, limit)) {
+                Integer hikeId = SuggestTrie.TYPE_NAME.equals(e.type) ? Integer.valueOf(e.hikeId) : null;
+                suggestions.add(new Suggestion(e.text, e.type, hikeId));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hikes matching q and the location filters (but not the bitmap filters),
+     * counted per facet bucket.
+     */
+    private Map<String, Map<String, Integer>> facetCounts(SearchCriteria criteria, Candidates found) {
+        BitSet base;
+        if (found.docs == null) {
+            base = data.bitmaps.all; // no q and no location: every hike (facetCounts copies it)
+        } else {
+            base = new BitSet();
+            for (Doc doc : found.docs) {
+                if (insideBox(doc, criteria) && (!criteria.hasOrigin() || withinRadius(distanceKm(doc, criteria), criteria))) {
+                    base.set(doc.record.getHikeId());
+                }
+            }
+        }
+        return data.bitmaps.facetCounts(base, criteria, exactDistance(criteria), exactRating(criteria));
+    }
+
+    /**
+     * Candidates from q (full-text or substring) or, without q, from the location box.
+     * docs is null when neither narrows anything.
+     */
+    private Candidates candidates(SearchCriteria criteria) {
+        Candidates found = new Candidates();
+        if (criteria.isFuzzy()) {
+            found.edits = matchFuzzy(criteria.getFuzzyWords());
+            found.docs = docsFor(found.edits.keySet());
+        } else if (criteria.useFullText()) {
+            found.scores = matchWords(criteria.getFullTextWords());
+            found.docs = docsFor(found.scores.keySet());
+        } else if (criteria.hasQuery()) {
+            found.docs = matchSubstring(criteria.getQuery().toLowerCase());
+        } else if (criteria.getBoundingBox() != null) {
+            found.docs = matchBox(criteria.getBoundingBox());
+        }
+        return found;
+    }
+
+    private static final class Candidates {
+        Collection<Doc> docs;              // null = all hikes
+        Map<Integer, Integer> scores;      // hikeId -> relevance, full-text only
+        Map<Integer, Integer> edits;       // hikeId -> total edit distance, fuzzy only
+    }
+
+    // Per-hike checks for bitmap bands that a min/max value cuts through
+    private IntPredicate exactDistance(SearchCriteria criteria) {
+        return id -> {
+            double distance = data.docs.get(id).record.getDistance();
+            return (criteria.getMinLength() == null || distance >= criteria.getMinLength())
+                    && (criteria.getMaxLength() == null || distance <= criteria.getMaxLength());
+        };
+    }
+
+    private IntPredicate exactRating(SearchCriteria criteria) {
+        return id -> data.docs.get(id).record.getAverageRating() >= criteria.getMinRating();
+    }
+
+    private static Double distanceKm(Doc doc, SearchCriteria criteria) {
+        return doc.record.hasLocation()
+                ? GeoMath.distanceKm(criteria.getLatitude(), criteria.getLongitude(),
+                        doc.record.getLatitude(), doc.record.getLongitude())
+                : null;
+    }
+
+    private static boolean withinRadius(Double km, SearchCriteria criteria) {
+        return criteria.getRadiusKm() == null || (km != null && km <= criteria.getRadiusKm());
+    }
+
+    /**
+     * True when doc sorts strictly after the cursor row in rating order
+     * (same seek predicate as the SQL path).
+     */
+    private static boolean isAfter(Doc doc, SearchCursor cursor) {
+        int byRating = BigDecimal.valueOf(doc.record.getAverageRating()).compareTo(cursor.getAverageRating());
+        if (byRating != 0) {
+            return byRating < 0;
+        }
+        if (doc.createdAt != cursor.getCreatedAtMillis()) {
+            return doc.createdAt < cursor.getCreatedAtMillis();
+        }
+        return doc.record.getHikeId() < cursor.getHikeId();
+    }
+
+    /**
+     * Every word must prefix-match a word of the hike. Returns hikeId -> relevance
+     * (sum over query words of the best field weight that matched).
+     */
+    private Map<Integer, Integer> matchWords(List<String> words) {
+        Map<Integer, Integer> result = null;
+        for (String word : words) {
+            Map<Integer, Integer> wordScores = new HashMap<>();
+            for (Map<Integer, Integer> postings : data.words.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                for (Map.Entry<Integer, Integer> posting : postings.entrySet()) {
+                    wordScores.merge(posting.getKey(), fieldWeight(posting.getValue()), Math::max);
+                }
+            }
+            if (result == null) {
+                result = wordScores;
+            } else {
+                result.keySet().retainAll(wordScores.keySet());
+                for (Map.Entry<Integer, Integer> e : result.entrySet()) {
+                    e.setValue(e.getValue() + wordScores.get(e.getKey()));
+                }
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new HashMap<>();
+    }
+
+    /**
+     * Every query word must be within a few edits of some word of the hike's name.
+     * Returns hikeId -> total edits (sum over query words of the closest name word).
+     * Candidate words come from the BK-tree, so names are not scanned one by one.
+     */
+    private Map<Integer, Integer> matchFuzzy(List<String> words) {
+        Map<Integer, Integer> result = null;
+        for (String word : words) {
+            Map<Integer, Integer> wordEdits = new HashMap<>();
+            for (BkTree.Match match : data.nameWords.search(word, maxEdits(word))) {
+                Set<Integer> hikes = data.nameWordHikes.get(match.word);
+                if (hikes == null) {
+                    continue; // word no longer used by any hike
+                }
+                for (Integer id : hikes) {
+                    wordEdits.merge(id, match.distance, Math::min);
+                }
+            }
+            if (result == null) {
+                result = wordEdits;
+            } else {
+                result.keySet().retainAll(wordEdits.keySet());
+                for (Map.Entry<Integer, Integer> e : result.entrySet()) {
+                    e.setValue(e.getValue() + wordEdits.get(e.getKey()));
+                }
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new HashMap<>();
+    }
+
+    /**
+     * Typos allowed per word: none for 1-2 letters ("mt"), one up to 5 letters, two beyond.
+     */
+    private static int maxEdits(String word) {
+        if (word.length() <= 2) return 0;
+        if (word.length() <= 5) return 1;
+        return 2;
+    }
+
+    private static int fieldWeight(int fieldMask) {
+        // name > location > description, same ordering the FULLTEXT score tends to give
+        if ((fieldMask & FIELD_NAME) != 0) return 3;
+        if ((fieldMask & FIELD_LOCATION) != 0) return 2;
+        return 1;
+    }
+
+    /**
+     * Case-insensitive substring match on name or location_text.
+     * Queries of 3+ chars are narrowed with the trigram index first.
+     */
+    private Collection<Doc> matchSubstring(String needle) {
+        Collection<Doc> candidates;
+        if (needle.length() >= 3) {
+            Set<Integer> ids = null;
+            for (String gram : trigrams(needle)) {
+                Set<Integer> postings = data.trigrams.get(gram);
+                if (postings == null) {
+                    return new ArrayList<>();
+                }
+                if (ids == null) {
+                    ids = new HashSet<>(postings);
+                } else {
+                    ids.retainAll(postings);
+                }
+                if (ids.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+            candidates = docsFor(ids);
+        } else {
+            candidates = data.docs.values();
+        }
+
+        List<Doc> matches = new ArrayList<>();
+        for (Doc doc : candidates) {
+            if (doc.lowerName.contains(needle) || doc.lowerLocation.contains(needle)) {
+                matches.add(doc);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Hikes with coordinates inside box, read from the grid cells it overlaps.
+     */
+    private Collection<Doc> matchBox(BoundingBox box) {
+        int rowMin = gridRow(box.getSouth());
+        int rowMax = gridRow(box.getNorth());
+        int colMin = gridColumn(box.getWest());
+        int colMax = gridColumn(box.getEast());
+
+        List<Doc> matches = new ArrayList<>();
+        if ((long) (rowMax - rowMin + 1) * (colMax - colMin + 1) > GRID_MAX_CELLS) {
+            // Large area: cheaper to check every hike than to visit mostly empty cells
+            for (Doc doc : data.docs.values()) {
+                if (doc.record.hasLocation() && box.contains(doc.record.getLatitude(), doc.record.getLongitude())) {
+                    matches.add(doc);
+                }
+            }
+            return matches;
+        }
+        for (int row = rowMin; row <= rowMax; row++) {
+            for (int col = colMin; col <= colMax; col++) {
+                Set<Integer> ids = data.cells.get(gridCell(row, col));
+                if (ids == null) {
+                    continue;
+                }
+                for (Integer id : ids) {
+                    Doc doc = data.docs.get(id);
+                    if (doc != null && box.contains(doc.record.getLatitude(), doc.record.getLongitude())) {
+                        matches.add(doc);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static int gridRow(double lat) {
+        return (int) Math.floor((lat + 90) / GRID_CELL_DEGREES);
+    }
+
+    private static int gridColumn(double lon) {
+        return (int) Math.floor((lon + 180) / GRID_CELL_DEGREES);
+    }
+
+    private static long gridCell(int row, int col) {
+        return (long) row * GRID_COLUMNS + col;
+    }
+
+    private static long gridCell(HikeRecord record) {
+        return gridCell(gridRow(record.getLatitude()), gridColumn(record.getLongitude()));
+    }
+
+    private List<Doc> docsFor(BitSet ids) {
+        List<Doc> docs = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            Doc doc = data.docs.get(id);
+            if (doc != null) {
+                docs.add(doc);
+            }
+        }
+        return docs;
+    }
+
+    private List<Doc> docsFor(Set<Integer> ids) {
+        List<Doc> docs = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Doc doc = data.docs.get(id);
+            if (doc != null) {
+                docs.add(doc);
+            }
+        }
+        return docs;
+    }
+
+    private static boolean insideBox(Doc doc, SearchCriteria criteria) {
+        BoundingBox box = criteria.getBoundingBox();
+        HikeRecord r = doc.record;
+        return box == null || (r.hasLocation() && box.contains(r.getLatitude(), r.getLongitude()));
+    }
+
+    private static List<String> trigrams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // -----------------------------
+    // Index structures
+    // -----------------------------
+
+    /** One indexed hike; immutable once built. */
+    private static final class Doc {
+        final HikeRecord record;
+        final Hike hike;
+        final String lowerName;
+        final String lowerLocation;
+        final long createdAt;
+
+        Doc(HikeRecord record) {
+            this.record = record;
+            this.hike = record.toHike();
+            this.lowerName = record.getName() != null ? record.getName().toLowerCase() : "";
+            this.lowerLocation = record.getLocationText() != null ? record.getLocationText().toLowerCase() : "";
+            this.createdAt = record.getCreatedAt() != null ? record.getCreatedAt().getTime() : 0L;
+        }
+
+        Map<String, Integer> wordFields() {
+            Map<String, Integer> fields = new HashMap<>();
+            for (String w : SearchCriteria.tokenize(record.getName())) fields.merge(w, FIELD_NAME, (a, b) -> a | b);
+            for (String w : SearchCriteria.tokenize(record.getLocationText())) fields.merge(w, FIELD_LOCATION, (a, b) -> a | b);
+            for (String w : SearchCriteria.tokenize(record.getDescription())) fields.merge(w, FIELD_DESCRIPTION, (a, b) -> a | b);
+            return fields;
+        }
+
+        Set<String> trigramSet() {
+            Set<String> grams = new HashSet<>(trigrams(lowerName));
+            grams.addAll(trigrams(lowerLocation));
+            return grams;
+        }
+    }
+
+    private static final class IndexData {
+        final Map<Integer, Doc> docs = new HashMap<>();
+        // word -> (hikeId -> FIELD_* bits)
+        final TreeMap<String, Map<Integer, Integer>> words = new TreeMap<>();
+        // trigram of name/location_text -> hikeIds
+        final Map<String, Set<Integer>> trigrams = new HashMap<>();
+        // location grid cell -> hikeIds (hikes with coordinates only)
+        final Map<Long, Set<Integer>> cells = new HashMap<>();
+        // difficulty / distance / rating bitsets
+        final FilterBitmaps bitmaps = new FilterBitmaps();
+        // name / location completions
+        final SuggestTrie suggest = new SuggestTrie();
+        // distinct name words, and name word -> hikeIds
+        final BkTree nameWords = new BkTree();
+        final Map<String, Set<Integer>> nameWordHikes = new HashMap<>();
+
+        void add(Doc doc) {
+            int id = doc.record.getHikeId();
+            docs.put(id, doc);
+            for (Map.Entry<String, Integer> e : doc.wordFields().entrySet()) {
+                words.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(id, e.getValue());
+            }
+            for (String gram : doc.trigramSet()) {
+                trigrams.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+            }
+            if (doc.record.hasLocation()) {
+                cells.computeIfAbsent(gridCell(doc.record), k -> new HashSet<>()).add(id);
+            }
+            bitmaps.add(id, doc.record.getDifficulty(), doc.record.getDistance(), doc.record.getAverageRating());
+            suggest.add(id, doc.record.getName(), doc.record.getLocationText(), doc.record.getTotalRatings());
+            for (String word : SearchCriteria.tokenize(doc.record.getName())) {
+                nameWords.add(word);
+                nameWordHikes.computeIfAbsent(word, k -> new HashSet<>()).add(id);
+            }
+        }
+
+        void remove(int hikeId) {
+            Doc doc = docs.remove(hikeId);
+            if (doc == null) {
+                return;
+            }
+            for (String word : doc.wordFields().keySet()) {
+                Map<Integer, Integer> postings = words.get(word);
+                if (postings != null) {
+                    postings.remove(hikeId);
+                    if (postings.isEmpty()) words.remove(word);
+                }
+            }
+            for (String gram : doc.trigramSet()) {
+                Set<Integer> postings = trigrams.get(gram);
+                if (postings != null) {
+                    postings.remove(hikeId);
+                    if (postings.isEmpty()) trigrams.remove(gram);
+                }
+            }
+            if (doc.record.hasLocation()) {
+                long cell = gridCell(doc.record);
+                Set<Integer> ids = cells.get(cell);
+                if (ids != null) {
+                    ids.remove(hikeId);
+                    if (ids.isEmpty()) cells.remove(cell);
+                }
+            }
+            bitmaps.remove(hikeId);
+            suggest.remove(hikeId);
+            for (String word : SearchCriteria.tokenize(doc.record.getName())) {
+                Set<Integer> postings = nameWordHikes.get(word);
+                if (postings != null) {
+                    postings.remove(hikeId);
+                    if (postings.isEmpty()) nameWordHikes.remove(word); // the BK-tree keeps the word
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package search;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parsed and normalized /api/hikes filter parameters.
+ * Shared by the SQL search path (SearchServlet) and the in-memory HikeSearchIndex
+ * so both interpret a request the same way.
+ */
+public class SearchCriteria {
+
+    public enum Sort { RATING, RELEVANCE, DISTANCE }
+    public enum Match { AUTO, FULLTEXT, SUBSTRING }
+
+    // Matches InnoDB's default innodb_ft_min_token_size
+    public static final int FULLTEXT_MIN_TOKEN_LENGTH = 3;
+    // InnoDB's default stopword list (INFORMATION_SCHEMA.INNODB_FT_DEFAULT_STOPWORD)
+    private static final Set<String> FULLTEXT_STOPWORDS = Set.of(
+        "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for",
+        "from", "how", "i", "in", "is", "it", "la", "of", "on", "or", "that", "the",
+        "this", "to", "was", "what", "when", "where", "who", "will", "with", "und", "www");
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    // Half the Earth's circumference; anything larger covers the whole globe anyway
+    public static final double MAX_RADIUS_KM = 20_000;
+
+    private final String query;           // trimmed, null when blank
+    private final Double difficulty;      // stored DB value (1.0 / 2.5 / 4.0 / 5.0), null = any
+    private final Double minLength;
+    private final Double maxLength;
+    private final Double minRating;
+    private final Sort sort;
+    private final Match match;
+    private final List<String> fullTextWords; // empty = use substring matching
+    private final Integer limit;          // null = return every match (legacy array response)
+    private final SearchCursor cursor;    // null = first page
+    private final Double latitude;        // user position; null = no distance filtering or sorting
+    private final Double longitude;
+    private final Double radiusKm;        // only with latitude/longitude
+    private final BoundingBox bbox;       // explicit box and/or the box around radiusKm
+    private final boolean facets;         // include per-facet counts in the response
+    private final boolean fuzzy;          // typo-tolerant matching of q against hike names
+
+    // Only reached through fromRequest()
+    private SearchCriteria(String query, Double difficulty, Double minLength, Double maxLength,
+                           Double minRating, Sort sort, Match match, Integer limit, SearchCursor cursor,
+                           Double latitude, Double longitude, Double radiusKm, BoundingBox bbox,
+                           boolean facets, boolean fuzzy) {
+        this.query = (query == null || query.isBlank()) ? null : query.trim();
+        this.difficulty = difficulty;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.minRating = minRating;
+        this.sort = sort;
+        this.match = match;
+        this.fullTextWords = (match == Match.SUBSTRING) ? Collections.emptyList() : indexableWords(this.query);
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException("lat and lon must be given together");
+        }
+        if (latitude != null && (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180)) {
+            throw new IllegalArgumentException("lat must be between -90 and 90 and lon between -180 and 180");
+        }
+        if (radiusKm != null && latitude == null) {
+            throw new IllegalArgumentException("radius_km requires lat and lon");
+        }
+        if (radiusKm != null && (radiusKm <= 0 || radiusKm > MAX_RADIUS_KM)) {
+            throw new IllegalArgumentException("radius_km must be greater than 0 and at most " + (int) MAX_RADIUS_KM);
+        }
+        if (sort == Sort.DISTANCE && latitude == null) {
+            throw new IllegalArgumentException("sort=distance requires lat and lon");
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.radiusKm = radiusKm;
+        this.bbox = (radiusKm != null) ? intersect(bbox, BoundingBox.around(latitude, longitude, radiusKm)) : bbox;
+        this.fuzzy = fuzzy && this.query != null;
+        if (cursor != null && (sortByRelevance() || sortByDistance() || this.fuzzy)) {
+            throw new IllegalArgumentException("cursor pagination is only supported with sort=rating and without fuzzy");
+        }
+        this.cursor = cursor;
+        this.limit = (limit == null && cursor != null) ? Integer.valueOf(DEFAULT_PAGE_SIZE) : limit;
+        this.facets = facets;
+    }
+
+    /**
+     * Parse the request's query string.
+     * Throws NumberFormatException for bad numbers and IllegalArgumentException for bad enums.
+     */
+    public static SearchCriteria fromRequest(HttpServletRequest request) {
+        return new SearchCriteria(
+            request.getParameter("q"),
+            parseDifficulty(request.getParameter("difficulty")),
+            parseDoubleOrNull(request.getParameter("min_length")),
+            parseDoubleOrNull(request.getParameter("max_length")),
+            parseDoubleOrNull(request.getParameter("min_rating")),
+            parseSort(request.getParameter("sort")),
+            parseMatch(request.getParameter("match")),
+            parseLimit(request.getParameter("limit")),
+            parseCursor(request.getParameter("cursor")),
+            parseDoubleOrNull(request.getParameter("lat")),
+            parseDoubleOrNull(request.getParameter("lon")),
+            parseDoubleOrNull(request.getParameter("radius_km")),
+            parseBoundingBox(request.getParameter("bbox")),
+            Boolean.parseBoolean(request.getParameter("facets")),
+            Boolean.parseBoolean(request.getParameter("fuzzy"))
+        );
+    }
+
+    // -----------------------------
+    // Parsing helpers
+    // -----------------------------
+
+    private static Double parseDoubleOrNull(String s) {
+        // Throws NumberFormatException on bad input (reported as 400 by the servlet)
+        return (s != null && !s.isEmpty()) ? Double.parseDouble(s) : null;
+    }
+
+    /**
+     * Map difficulty string to exact DB values.
+     * Match the difficulty mapping used in AddHikeServlet:
+     * Easy: 1, Moderate: 2.5, Hard: 4, Expert: 5. Unknown values mean "any".
+     */
+    private static Double parseDifficulty(String difficulty) {
+        if (difficulty == null || difficulty.equalsIgnoreCase("All")) {
+            return null;
+        }
+        if (difficulty.equalsIgnoreCase("Easy")) return 1.0;
+        if (difficulty.equalsIgnoreCase("Moderate")) return 2.5;
+        if (difficulty.equalsIgnoreCase("Hard")) return 4.0;
+        if (difficulty.equalsIgnoreCase("Expert")) return 5.0;
+        return null;
+    }
+
+    private static Sort parseSort(String sort) {
+        if (sort == null || sort.isEmpty() || sort.equalsIgnoreCase("rating")) return Sort.RATING;
+        if (sort.equalsIgnoreCase("relevance")) return Sort.RELEVANCE;
+        if (sort.equalsIgnoreCase("distance")) return Sort.DISTANCE;
+        throw new IllegalArgumentException("sort must be one of: rating, relevance, distance");
+    }
+
+    private static Match parseMatch(String match) {
+        if (match == null || match.isEmpty() || match.equalsIgnoreCase("auto")) return Match.AUTO;
+        if (match.equalsIgnoreCase("fulltext")) return Match.FULLTEXT;
+        if (match.equalsIgnoreCase("substring")) return Match.SUBSTRING;
+        throw new IllegalArgumentException("match must be one of: auto, fulltext, substring");
+    }
+
+    private static Integer parseLimit(String s) {
+        if (s == null || s.isEmpty()) {
+            return null;
+        }
+        int limit = Integer.parseInt(s);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    private static SearchCursor parseCursor(String s) {
+        return (s == null || s.isEmpty()) ? null : SearchCursor.decode(s);
+    }
+
+    private static BoundingBox parseBoundingBox(String s) {
+        return (s == null || s.isEmpty()) ? null : BoundingBox.parse(s);
+    }
+
+    /**
+     * Overlap of an explicit bbox with the box around the radius (either may be null).
+     */
+    private static BoundingBox intersect(BoundingBox a, BoundingBox b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        double south = Math.max(a.getSouth(), b.getSouth());
+        double north = Math.min(a.getNorth(), b.getNorth());
+        double west = Math.max(a.getWest(), b.getWest());
+        double east = Math.min(a.getEast(), b.getEast());
+        if (south > north || west > east) {
+            // No overlap: a zero-size box at a corner of the explicit box. That point lies
+            // outside the radius, so the distance check still rejects everything.
+            return new BoundingBox(a.getWest(), a.getSouth(), a.getWest(), a.getSouth());
+        }
+        return new BoundingBox(west, south, east, north);
+    }
+
+    /**
+     * Lower-cased words of q that a FULLTEXT index actually stores: words shorter
+     * than innodb_ft_min_token_size and InnoDB stopwords are dropped. Splitting on
+     * non letters/digits also strips boolean-mode operators (+ - * " etc.).
+     */
+    private static List<String> indexableWords(String query) {
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : tokenize(query)) {
+            if (word.length() >= FULLTEXT_MIN_TOKEN_LENGTH && !FULLTEXT_STOPWORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return Collections.unmodifiableList(words);
+    }
+
+    /**
+     * Split text into lower-case letter/digit runs. Used for both queries and indexed text.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // -----------------------------
+    // Accessors
+    // -----------------------------
+
+    public String getQuery() {
+        return query;
+    }
+
+    public boolean hasQuery() {
+        return query != null;
+    }
+
+    /**
+     * True when q should go through FULLTEXT-style word matching rather than substring.
+     */
+    public boolean useFullText() {
+        return !fullTextWords.isEmpty();
+    }
+
+    public List<String> getFullTextWords() {
+        return fullTextWords;
+    }
+
+    /**
+     * q as a BOOLEAN MODE query like "+peak* +trail*" (every word required, prefix match).
+     */
+    public String toBooleanFullTextQuery() {
+        StringBuilder sb = new StringBuilder();
+        for (String word : fullTextWords) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('+').append(word).append('*');
+        }
+        return sb.toString();
+    }
+
+    public Double getDifficulty() {
+        return difficulty;
+    }
+
+    public Double getMinLength() {
+        return minLength;
+    }
+
+    public Double getMaxLength() {
+        return maxLength;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    /**
+     * Only a positive min_rating filters anything: unrated hikes count as 0.
+     */
+    public boolean hasMinRatingFilter() {
+        return minRating != null && minRating > 0;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public Match getMatch() {
+        return match;
+    }
+
+    public boolean sortByRelevance() {
+        return sort == Sort.RELEVANCE && useFullText();
+    }
+
+    /**
+     * True when the client asked for pages (limit and/or cursor).
+     */
+    public boolean isPaged() {
+        return limit != null;
+    }
+
+    public boolean wantsFacets() {
+        return facets;
+    }
+
+    /**
+     * True for fuzzy=true with a non-blank q: q's words are matched against hike
+     * name words within a small edit distance (see HikeSearchIndex).
+     */
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+
+    /**
+     * Lower-cased words of q for fuzzy matching. Stopwords are dropped unless
+     * nothing else is left.
+     */
+    public List<String> getFuzzyWords() {
+        List<String> words = new ArrayList<>();
+        List<String> all = tokenize(query);
+        for (String word : all) {
+            if (!FULLTEXT_STOPWORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words.isEmpty() ? all : words;
+    }
+
+    /**
+     * True when the response is the {"hikes": [...], "next_cursor": ..., "facets": ...}
+     * envelope (paged or faceted requests) instead of a bare array.
+     */
+    public boolean isEnveloped() {
+        return isPaged() || facets;
+    }
+
+    /**
+     * Key for SearchResultCache. Two requests with the same key get the same response:
+     * q is reduced to what is actually matched (FULLTEXT words or the lower-cased
+     * substring), a non-positive min_rating and sort=relevance without full-text words
+     * are dropped since they don't change the results.
+     */
+    public String cacheKey() {
+        StringBuilder key = new StringBuilder();
+        if (useFullText()) {
+            key.append("ft:").append(String.join(" ", fullTextWords));
+        } else if (hasQuery()) {
+            key.append("sub:").append(query.toLowerCase());
+        }
+        key.append("|d=").append(difficulty);
+        key.append("|min=").append(minLength);
+        key.append("|max=").append(maxLength);
+        key.append("|r=").append(hasMinRatingFilter() ? minRating : null);
+        key.append("|rel=").append(sortByRelevance());
+        key.append("|limit=").append(limit);
+        key.append("|cursor=").append(cursor != null ? cursor.encode() : null);
+        key.append("|lat=").append(latitude);
+        key.append("|lon=").append(longitude);
+        key.append("|radius=").append(radiusKm);
+        key.append("|bbox=").append(bbox);
+        key.append("|dist=").append(sortByDistance());
+        key.append("|facets=").append(facets);
+        key.append("|fuzzy=").append(fuzzy);
+        return key.toString();
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public SearchCursor getCursor() {
+        return cursor;
+    }
+
+    /**
+     * True when lat/lon were given: results carry distance_km from that point.
+     */
+    public boolean hasOrigin() {
+        return latitude != null;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public Double getRadiusKm() {
+        return radiusKm;
+    }
+
+    /**
+     * The area results must fall in (bbox parameter and/or the square around
+     * radius_km), or null for no location filter.
+     */
+    public BoundingBox getBoundingBox() {
+        return bbox;
+    }
+
+    public boolean sortByDistance() {
+        return sort == Sort.DISTANCE;
+    }
+}
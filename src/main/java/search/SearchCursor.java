@@ -0,0 +1,59 @@
+package search;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for /api/hikes: the (average_rating, created_at, hike_id)
+ * of the last hike on the previous page. The next page seeks to rows strictly
+ * after it in "average_rating DESC, created_at DESC, hike_id DESC" order.
+ */
+public class SearchCursor {
+
+    private final BigDecimal averageRating;
+    private final long createdAtMillis;
+    private final int hikeId;
+
+    public SearchCursor(BigDecimal averageRating, long createdAtMillis, int hikeId) {
+        this.averageRating = averageRating.stripTrailingZeros();
+        this.createdAtMillis = createdAtMillis;
+        this.hikeId = hikeId;
+    }
+
+    /**
+     * URL-safe token, e.g. "NC45fDE3MDAwMDAwMDAwMDB8MTAx".
+     */
+    public String encode() {
+        String raw = averageRating.toPlainString() + "|" + createdAtMillis + "|" + hikeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token produced by encode(). Throws IllegalArgumentException if it is malformed.
+     */
+    public static SearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new SearchCursor(new BigDecimal(parts[0]), Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) { // also covers NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public BigDecimal getAverageRating() {
+        return averageRating;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public int getHikeId() {
+        return hikeId;
+    }
+}
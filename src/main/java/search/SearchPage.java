@@ -0,0 +1,38 @@
+package search;
+
+import database.Hike;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of /api/hikes results. next_cursor is null (and omitted from the JSON)
+ * on the last page. facets is only filled in for facets=true requests.
+ */
+public class SearchPage {
+    private final List<Hike> hikes;
+    private final String next_cursor;
+    // facet name -> bucket label -> number of matching hikes
+    private Map<String, Map<String, Integer>> facets;
+
+    public SearchPage(List<Hike> hikes, String next_cursor) {
+        this.hikes = hikes;
+        this.next_cursor = next_cursor;
+    }
+
+    public List<Hike> getHikes() {
+        return hikes;
+    }
+
+    public String getNext_cursor() {
+        return next_cursor;
+    }
+
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Integer>> facets) {
+        this.facets = facets;
+    }
+}
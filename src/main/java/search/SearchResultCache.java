@@ -0,0 +1,129 @@
+package search;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of serialized /api/hikes responses, keyed by SearchCriteria.cacheKey().
+ *
+ * Entries expire after a TTL and the whole cache is dropped whenever a hike, review
+ * or photo is written (see SearchUpdates), since one write can change the results of
+ * any filter combination. A generation counter keeps a search that started before an
+ * invalidation from storing its now-stale result afterwards.
+ *
+ * Settings (system properties):
+ *  - hikes.search.cacheTtlSeconds   (default 60, 0 disables the cache)
+ *  - hikes.search.cacheMaxEntries   (default 500, least recently used entries are evicted)
+ */
+public class SearchResultCache {
+
+    private static final SearchResultCache INSTANCE = new SearchResultCache(
+            Long.getLong("hikes.search.cacheTtlSeconds", 60) * 1000,
+            Integer.getInteger("hikes.search.cacheMaxEntries", 500));
+
+    // Larger responses are not cached (they would crowd out the common small ones)
+    public static final int MAX_ENTRY_BYTES = 1024 * 1024;
+
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    // Access-ordered, so iteration starts at the least recently used entry. Guarded by this.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation = 0; // guarded by this
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    SearchResultCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    public static SearchResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return ttlMillis > 0 && maxEntries > 0;
+    }
+
+    /**
+     * The cached response body for key, or null on a miss (absent or expired).
+     */
+    public synchronized byte[] get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.incrementAndGet();
+            return entry.body;
+        }
+        if (entry != null) {
+            entries.remove(key);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Current generation; pass it back to put() so results computed before an
+     * invalidation are discarded.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(String key, byte[] body, long generationAtStart) {
+        if (!isEnabled() || body.length > MAX_ENTRY_BYTES || generationAtStart != generation) {
+            return;
+        }
+        entries.put(key, new Entry(body, System.currentTimeMillis() + ttlMillis));
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drop every entry. Called after any committed write that can change search results.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    private static final class Entry {
+        final byte[] body;
+        final long expiresAt;
+
+        Entry(byte[] body, long expiresAt) {
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
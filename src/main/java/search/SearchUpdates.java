@@ -0,0 +1,16 @@
+package search;
+
+/**
+ * Where writers report a committed change to a hike (new hike, review or photo),
+ * so every search-side structure is brought up to date in one call.
+ */
+public final class SearchUpdates {
+
+    private SearchUpdates() {
+    }
+
+    public static void hikeChanged(int hikeId) {
+        HikeSearchIndex.getInstance().refreshHike(hikeId);
+        SearchResultCache.getInstance().invalidateAll();
+    }
+}
@@ -0,0 +1,299 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compressed (radix) prefix trie for /api/hikes/suggest, part of HikeSearchIndex.
+ *
+ * Every hike name and location_text is inserted once per word start, so "bal"
+ * completes "Mt Baldy" as well as "Baldy Bowl". A location shared by several hikes
+ * is a single entry (per normalized text), reference-counted by its hikes and ranked
+ * by their total review count, so it never fills a node's list with copies of
+ * itself. Each node caches the best
+ * TOP_PER_NODE entries of its subtree, so a lookup is one walk down the prefix
+ * with no subtree scan. Inserts offer the entry to each node on their path;
+ * removals recompute the cached lists bottom-up along the same path.
+ *
+ * Not thread-safe; HikeSearchIndex guards it with its read/write lock.
+ */
+class SuggestTrie {
+
+    // Kept per node
+    static final int TOP_PER_NODE = 20;
+
+    static final String TYPE_NAME = "name";
+    static final String TYPE_LOCATION = "location";
+
+    // Most reviewed first, then alphabetical
+    private static final Comparator<Entry> RANK = Comparator
+            .comparingInt((Entry e) -> e.reviewCount).reversed()
+            .thenComparing(e -> e.text, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(e -> e.hikeId);
+
+    private final Node root = new Node("");
+    // hikeId -> its name entry, so it can be removed
+    private final Map<Integer, Entry> names = new HashMap<>();
+    // hikeId -> normalized location text, and normalized location text -> its shared entry
+    private final Map<Integer, String> hikeLocations = new HashMap<>();
+    private final Map<String, Location> locations = new HashMap<>();
+
+    /** One completion: a hike name or a location, with the hike it came from. */
+    static final class Entry {
+        final int hikeId;
+        final String text;
+        final String type;
+        final int reviewCount;
+
+        Entry(int hikeId, String text, String type, int reviewCount) {
+            this.hikeId = hikeId;
+            this.text = text;
+            this.type = type;
+            this.reviewCount = reviewCount;
+        }
+    }
+
+    /** A distinct location and the hikes (with their review counts) that have it. */
+    private static final class Location {
+        final String text;                                  // as first seen, for display
+        final Map<Integer, Integer> reviewCounts = new HashMap<>();
+        int totalReviews;
+        Entry entry;                                        // current entry in the trie
+
+        Location(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Node {
+        String label;                                      // edge label from the parent
+        final Map<Character, Node> children = new HashMap<>(4);
+        final List<Entry> terminals = new ArrayList<>(1);  // entries whose key ends here
+        List<Entry> top = new ArrayList<>(1);              // best entries in this subtree
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    // -----------------------------
+    // Updates
+    // -----------------------------
+
+    void add(int hikeId, String name, String locationText, int reviewCount) {
+        remove(hikeId);
+        if (name != null && !name.isBlank()) {
+            Entry entry = new Entry(hikeId, name.trim(), TYPE_NAME, reviewCount);
+            insertAll(entry);
+            names.put(hikeId, entry);
+        }
+        String locationKey = locationText != null ? normalize(locationText) : "";
+        if (!locationKey.isEmpty()) {
+            Location location = locations.computeIfAbsent(locationKey, k -> new Location(locationText.trim()));
+            location.reviewCounts.put(hikeId, reviewCount);
+            location.totalReviews += reviewCount;
+            replaceEntry(location);
+            hikeLocations.put(hikeId, locationKey);
+        }
+    }
+
+    void remove(int hikeId) {
+        Entry name = names.remove(hikeId);
+        if (name != null) {
+            deleteAll(name);
+        }
+        String locationKey = hikeLocations.remove(hikeId);
+        if (locationKey != null) {
+            Location location = locations.get(locationKey);
+            location.totalReviews -= location.reviewCounts.remove(hikeId);
+            if (location.reviewCounts.isEmpty()) {
+                deleteAll(location.entry);
+                locations.remove(locationKey);
+            } else {
+                replaceEntry(location);
+            }
+        }
+    }
+
+    /** Swap a location's entry for one ranked by its current total (entries are immutable). */
+    private void replaceEntry(Location location) {
+        if (location.entry != null) {
+            deleteAll(location.entry);
+        }
+        location.entry = new Entry(0, location.text, TYPE_LOCATION, location.totalReviews);
+        insertAll(location.entry);
+    }
+
+    private void insertAll(Entry entry) {
+        for (String key : keys(entry.text)) {
+            insert(key, entry);
+        }
+    }
+
+    private void deleteAll(Entry entry) {
+        for (String key : keys(entry.text)) {
+            delete(key, entry);
+        }
+    }
+
+    private void insert(String key, Entry entry) {
+        Node node = root;
+        int i = 0;
+        while (true) {
+            offer(node, entry);
+            if (i == key.length()) {
+                node.terminals.add(entry);
+                return;
+            }
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                Node leaf = new Node(key.substring(i));
+                leaf.terminals.add(entry);
+                offer(leaf, entry);
+                node.children.put(key.charAt(i), leaf);
+                return;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge: node -> middle -> child
+                Node middle = new Node(child.label.substring(0, common));
+                middle.top = new ArrayList<>(child.top);
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+    }
+
+    private void delete(String key, Entry entry) {
+        // Walk down, remembering the path, then fix the cached lists bottom-up
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int i = 0;
+        path.add(node);
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return; // not present
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        node.terminals.remove(entry);
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node n = path.get(p);
+            if (!n.top.contains(entry)) {
+                break; // ancestors can't hold it either: their lists rank above this one's
+            }
+            recompute(n);
+        }
+    }
+
+    private static void offer(Node node, Entry entry) {
+        if (node.top.contains(entry)) {
+            return; // same entry reached through another word of its text
+        }
+        if (node.top.size() >= TOP_PER_NODE && RANK.compare(entry, node.top.get(node.top.size() - 1)) >= 0) {
+            return;
+        }
+        int pos = 0;
+        while (pos < node.top.size() && RANK.compare(node.top.get(pos), entry) < 0) {
+            pos++;
+        }
+        node.top.add(pos, entry);
+        if (node.top.size() > TOP_PER_NODE) {
+            node.top.remove(node.top.size() - 1);
+        }
+    }
+
+    /** Rebuild node.top from its own terminals and its children's (already correct) lists. */
+    private static void recompute(Node node) {
+        node.top = new ArrayList<>();
+        for (Entry e : node.terminals) {
+            offer(node, e);
+        }
+        for (Node child : node.children.values()) {
+            for (Entry e : child.top) {
+                offer(node, e);
+            }
+        }
+    }
+
+    // -----------------------------
+    // Lookup
+    // -----------------------------
+
+    /**
+     * Up to limit completions of prefix, best first.
+     */
+    List<Entry> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                return new ArrayList<>();
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (i + common == key.length()) {
+                node = child; // prefix ends inside (or at the end of) this edge
+                break;
+            }
+            if (common < child.label.length()) {
+                return new ArrayList<>();
+            }
+            node = child;
+            i += common;
+        }
+
+        return new ArrayList<>(node.top.subList(0, Math.min(limit, node.top.size())));
+    }
+
+    // -----------------------------
+    // Helpers
+    // -----------------------------
+
+    /**
+     * The normalized text from each word start: "Mt. Baldy Trail" gives
+     * "mt baldy trail", "baldy trail" and "trail".
+     */
+    private static Set<String> keys(String text) {
+        String normalized = normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    /** Lower-case, punctuation to single spaces, trimmed. */
+    static String normalize(String text) {
+        return text.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int n = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
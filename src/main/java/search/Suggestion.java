@@ -0,0 +1,29 @@
+package search;
+
+/**
+ * One /api/hikes/suggest completion. hike_id is set for hike names and omitted
+ * for locations, which can be shared by several hikes.
+ */
+public class Suggestion {
+    private final String text;
+    private final String type;
+    private final Integer hike_id;
+
+    public Suggestion(String text, String type, Integer hike_id) {
+        this.text = text;
+        this.type = type;
+        this.hike_id = hike_id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Integer getHike_id() {
+        return hike_id;
+    }
+}
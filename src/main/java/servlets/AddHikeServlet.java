@@ -4,7 +4,9 @@ import com.google.gson.Gson;
 import database.HikeDao;
 import database.PhotoDao;
 import database.ReviewDao;
+import search.SearchUpdates;
 
+import util.HikeVersions;
 import util.ImageUtil;
 import util.LocalImageStorage;
 
@@ -162,7 +164,7 @@ public class AddHikeServlet extends HttpServlet {
         }
         final String projectRoot = projectRootTemp; // Make final for lambda access
 
-        // main flow within DB transaction using the shared connection
+        // main flow within one DB transaction on a connection borrowed from the pool
         Connection conn = null;
         try {
             conn = database.DBConnector.getInstance().getConnection();
@@ -170,6 +172,7 @@ public class AddHikeServlet extends HttpServlet {
 
             // Create hike
             final int hikeId = hikeDao.createHike( // Make final for lambda access
+                conn,
                 name,
                 location,
                 difficulty,
@@ -291,7 +294,7 @@ public class AddHikeServlet extends HttpServlet {
                         imageUrls.add(savedPublicPath);
                         
                         // Persist into photos table (sequential for transaction safety)
-                        photoDao.insertPhoto(hikeId, userId, savedPublicPath, null);
+                        photoDao.insertPhoto(conn, hikeId, userId, savedPublicPath, null);
                     } catch (InterruptedException | ExecutionException e) {
                         System.out.println("AddHikeServlet: Error processing image: " + e.getMessage());
                         e.printStackTrace();
@@ -321,11 +324,15 @@ public class AddHikeServlet extends HttpServlet {
             // Optional initial review
             Integer createdReviewId = null;
             if (initialRating != null) {
-                createdReviewId = reviewDao.createReview(hikeId, userId, initialRating, initialComment == null ? "" : initialComment);
+                createdReviewId = reviewDao.createReview(conn, hikeId, userId, initialRating, initialComment == null ? "" : initialComment);
             }
 
             conn.commit();
 
+            // Make the new hike searchable (index + result cache)
+            SearchUpdates.hikeChanged(hikeId);
+            HikeVersions.getInstance().bump(hikeId);
+
             // Build success response
             var success = new java.util.HashMap<String, Object>();
             success.put("success", true);
@@ -345,6 +352,7 @@ public class AddHikeServlet extends HttpServlet {
             return;
         } finally {
             try { if (conn != null) conn.setAutoCommit(true); } catch (Exception ignored) {}
+            try { if (conn != null) conn.close(); } catch (Exception ignored) {} // returns it to the pool
         }
     }
 
@@ -0,0 +1,40 @@
+package servlets;
+
+import database.DBConnector;
+import database.UpvoteCounters;
+import search.HikeSearchIndex;
+import util.ParallelReads;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Starts shared resources when the webapp is deployed and releases them on undeploy.
+ */
+@WebListener
+public class AppLifecycleListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        // Warm up the connection pool so the first request doesn't pay for it
+        DBConnector.getInstance();
+
+        // Load the in-memory search index; if this fails, search keeps using SQL
+        try {
+            HikeSearchIndex.getInstance().rebuild();
+        } catch (Exception e) {
+            System.err.println("AppLifecycleListener: Could not build search index: " + e.getMessage());
+        }
+        System.out.println("AppLifecycleListener: Application started");
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        ParallelReads.shutdown();
+        // Write buffered upvote counts while the pool is still open
+        UpvoteCounters.getInstance().shutdown();
+        DBConnector.shutdown();
+        System.out.println("AppLifecycleListener: Application stopped");
+    }
+}
@@ -1,9 +1,14 @@
 package servlets;
 
+import database.CreatedReviewResponse;
 import database.DBConnector;
+import database.ReviewCursor;
 import database.ReviewDao;
-import database.ReviewResponse;
+import database.ReviewPage;
 import database.ReviewListResponse;
+import search.SearchUpdates;
+import util.HikeVersions;
+import util.SingleFlight;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -18,8 +23,15 @@ import jakarta.servlet.ServletException;
 
 @WebServlet("/api/reviews")
 public class CreateReviewServlet extends HttpServlet {
+    // Review list paging (GET with limit / cursor)
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final Gson gson = new Gson();
     private final ReviewDao reviewDao = new ReviewDao();
+    // Identical concurrent review-list reads share one set of queries. Keyed by hike, its
+    // version and the viewer, since the upvote flags in the list depend on who is asking.
+    private final SingleFlight<String, String> reviewListFlights = new SingleFlight<>();
 
     @Override
     protected void doOptions(HttpServletRequest req, HttpServletResponse resp) 
@@ -59,26 +71,52 @@ public class CreateReviewServlet extends HttpServlet {
             // Get current user ID (may be null if not authenticated)
             Integer currentUserId = (Integer) req.getAttribute("userId");
 
-            // Fetch reviews
-            var reviews = reviewDao.getReviewsForHike(hikeId, currentUserId);
-            
-            // Fetch average rating
-            double averageRating = reviewDao.getAverageRating(hikeId);
-            
-            // Fetch total reviews count
-            int totalReviews = reviewDao.getTotalReviews(hikeId);
-
-            // Create response
-            ReviewListResponse response = new ReviewListResponse(
-                hikeId, 
-                averageRating, 
-                totalReviews, 
-                reviews
-            );
+            // Optional paging: sort=newest|helpful, limit=1..MAX_PAGE_SIZE, cursor from nextCursor
+            ReviewCursor.Sort sort = ReviewCursor.Sort.fromParam(req.getParameter("sort"));
+            String cursorParam = req.getParameter("cursor");
+            ReviewCursor cursor = (cursorParam == null || cursorParam.isEmpty())
+                    ? null : ReviewCursor.decode(cursorParam, sort);
+            Integer limit = parseLimit(req.getParameter("limit"), cursor != null);
+
+            // Answer a re-poll from the in-memory version before touching the database.
+            // The tag includes the viewer because the upvote flags differ per user, and the page.
+            String variant = "reviews-u" + currentUserId + "-" + sort.name().toLowerCase()
+                    + "-" + limit + "-" + (cursor != null ? cursorParam : "");
+            HikeVersions.Stamp stamp = HikeVersions.getInstance().current(hikeId);
+            String etag = HikeVersions.getInstance().etag(hikeId, stamp, variant);
+            if (HikeVersions.isNotModified(req, etag, stamp.getLastModified())) {
+                HikeVersions.setValidators(resp, etag, stamp.getLastModified());
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
 
+            String body = reviewListFlights.execute(hikeId + ":" + stamp.getVersion() + ":" + variant, () -> {
+                // Fetch reviews, with the average rating and review count from hike_stats
+                ReviewPage page = reviewDao.getReviewsPage(hikeId, currentUserId, sort, limit, cursor);
+
+                // Create response
+                ReviewListResponse response = new ReviewListResponse(
+                    hikeId, 
+                    page.getAverageRating(), 
+                    page.getTotalReviews(), 
+                    page.getReviews()
+                );
+                if (page.getNextCursor() != null) {
+                    response.setNextCursor(page.getNextCursor().encode());
+                }
+                return gson.toJson(response);
+            });
+
+            HikeVersions.setValidators(resp, etag, stamp.getLastModified());
             resp.setStatus(HttpServletResponse.SC_OK);
-            resp.getWriter().write(gson.toJson(response));
+            resp.getWriter().write(body);
 
+        } catch (IllegalArgumentException e) {
+            // Bad sort / limit / cursor
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            JsonObject errorResponse = new JsonObject();
+            errorResponse.addProperty("error", e.getMessage());
+            resp.getWriter().write(gson.toJson(errorResponse));
         } catch (SQLException e) {
             e.printStackTrace();
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -94,6 +132,26 @@ public class CreateReviewServlet extends HttpServlet {
         }
     }
 
+    /**
+     * The limit parameter: null (no paging) when absent, unless a cursor was given, in
+     * which case DEFAULT_PAGE_SIZE applies.
+     */
+    private static Integer parseLimit(String value, boolean hasCursor) {
+        if (value == null || value.isEmpty()) {
+            return hasCursor ? DEFAULT_PAGE_SIZE : null;
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            limit = -1;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) 
             throws ServletException, IOException {
@@ -147,28 +205,12 @@ public class CreateReviewServlet extends HttpServlet {
                 return;
             }
 
-            // Create review
-            int reviewId = reviewDao.createReview(hikeId, userId, rating, comment);
-
-            // Fetch the created review to return
-            var reviews = reviewDao.getReviewsForHike(hikeId, userId);
-            ReviewResponse createdReview = reviews.stream()
-                .filter(r -> r.getId() == reviewId)
-                .findFirst()
-                .orElse(null);
-
-            if (createdReview == null) {
-                // If we can't find it, create a minimal response
-                createdReview = new ReviewResponse();
-                createdReview.setId(reviewId);
-                createdReview.setHikeId(hikeId);
-                createdReview.setUserId(userId);
-                createdReview.setRating(rating);
-                createdReview.setComment(comment);
-                createdReview.setUpvotes(0);
-                createdReview.setCreatedAt(java.time.LocalDateTime.now().toString());
-                createdReview.setUpvotedByCurrentUser(false);
-            }
+            // Create review (returns the review and the hike's new rating summary)
+            CreatedReviewResponse createdReview = reviewDao.createReview(hikeId, userId, rating, comment);
+
+            // Rating changed - update the search index and drop cached search results
+            SearchUpdates.hikeChanged(hikeId);
+            HikeVersions.getInstance().bump(hikeId);
 
             resp.setStatus(HttpServletResponse.SC_CREATED);
             resp.getWriter().write(gson.toJson(createdReview));
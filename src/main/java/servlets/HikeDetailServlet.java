@@ -1,27 +1,68 @@
 package servlets;
 
+import LoginService.JwtUtil;
 import database.DBConnector;
+import database.HikeStatsDao;
+import database.ReviewDao;
+import database.ReviewListResponse;
+import database.ReviewResponse;
+import util.HikeVersions;
+import util.OffHeapJsonCache;
+import util.ParallelReads;
+import util.SingleFlight;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
+/**
+ * GET /api/hikes/{id}        hike detail
+ * GET /api/hikes/{id}/page   detail and review list in one response, read concurrently
+ * GET /api/hikes/batch?ids=   details for up to MAX_BATCH_IDS hikes, keyed by id
+ */
 @WebServlet("/api/hikes/*")
 public class HikeDetailServlet extends HttpServlet {
 	private static final long serialVersionUID = 1L;
 	
+	// Most ids accepted by /api/hikes/batch
+	private static final int MAX_BATCH_IDS = 200;
+	
+	// Upper bound on waiting for any one of the page's reads
+	private static final long PAGE_READ_TIMEOUT_MS = 10_000;
+	
 	private final Gson gson = new Gson();
+	private final ReviewDao reviewDao = new ReviewDao();
+	// Concurrent requests for the same hike share one set of queries; null means not found
+	// (keyed by hike id and version, so nobody joins a load that started before a write)
+	private final SingleFlight<String, byte[]> detailFlights = new SingleFlight<>();
+	
+	// Serialized detail bodies, off-heap, keyed by hike id and checked against its
+	// HikeVersions version, so review / photo / hike writes invalidate them.
+	// Budget from hikes.detail.cacheBytes (default 32 MB, 0 disables).
+	private static final OffHeapJsonCache detailCache =
+		new OffHeapJsonCache(Long.getLong("hikes.detail.cacheBytes", 32L * 1024 * 1024));
 	
 	protected void doGet(HttpServletRequest request, HttpServletResponse response)
 		throws ServletException, IOException {
@@ -41,8 +82,17 @@ public class HikeDetailServlet extends HttpServlet {
 				return;
 			}
 			
-			// Remove leading slash and parse ID
+			if (pathInfo.equals("/batch")) {
+				writeHikeBatch(request, response);
+				return;
+			}
+			
+			// Remove leading slash and parse ID ("/12" or "/12/page")
 			String idStr = pathInfo.substring(1);
+			boolean pageRequest = idStr.endsWith("/page");
+			if (pageRequest) {
+				idStr = idStr.substring(0, idStr.length() - "/page".length());
+			}
 			int hikeId;
 			try {
 				hikeId = Integer.parseInt(idStr);
@@ -52,23 +102,60 @@ public class HikeDetailServlet extends HttpServlet {
 				return;
 			}
 			
+			if (pageRequest) {
+				writeHikePage(request, response, hikeId);
+				return;
+			}
+			
+			// Answer a re-poll from the in-memory version before touching the database
+			HikeVersions.Stamp stamp = HikeVersions.getInstance().current(hikeId);
+			String etag = HikeVersions.getInstance().etag(hikeId, stamp, "detail");
+			if (HikeVersions.isNotModified(request, etag, stamp.getLastModified())) {
+				HikeVersions.setValidators(response, etag, stamp.getLastModified());
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+			
+			// Unchanged since it was last served: copy the cached bytes straight out
+			OffHeapJsonCache.Entry cached = detailCache.acquire(hikeId, stamp.getVersion());
+			if (cached != null) {
+				try {
+					HikeVersions.setValidators(response, etag, stamp.getLastModified());
+					response.setStatus(HttpServletResponse.SC_OK);
+					response.setContentLength(cached.getLength());
+					detailCache.writeTo(cached, response.getOutputStream());
+				} finally {
+					detailCache.release(cached);
+				}
+				return;
+			}
+			
 			System.out.println("HikeDetailServlet: Fetching hike with ID: " + hikeId);
 			
-			// Fetch hike details
-			HikeDetail hikeDetail = getHikeById(hikeId);
+			// Fetch hike details (serialized once and shared with identical concurrent requests)
+			byte[] hikeJson = detailFlights.execute(hikeId + ":" + stamp.getVersion(), () -> {
+				HikeDetail detail = getHikeById(hikeId);
+				if (detail == null) {
+					return null;
+				}
+				System.out.println("HikeDetailServlet: Successfully fetched hike: " + detail.name);
+				byte[] body = gson.toJson(detail).getBytes(StandardCharsets.UTF_8);
+				detailCache.put(hikeId, stamp.getVersion(), body);
+				return body;
+			});
 			
-			if (hikeDetail == null) {
+			if (hikeJson == null) {
 				System.out.println("HikeDetailServlet: Hike not found for ID: " + hikeId);
 				response.setStatus(HttpServletResponse.SC_NOT_FOUND);
 				response.getWriter().write(gson.toJson(new ErrorResponse("Hike not found")));
 				return;
 			}
 			
-			System.out.println("HikeDetailServlet: Successfully fetched hike: " + hikeDetail.name);
-			
 			// Return hike details
+			HikeVersions.setValidators(response, etag, stamp.getLastModified());
 			response.setStatus(HttpServletResponse.SC_OK);
-			response.getWriter().write(gson.toJson(hikeDetail));
+			response.setContentLength(hikeJson.length);
+			response.getOutputStream().write(hikeJson);
 			
 		} catch(SQLException e){
             e.printStackTrace();
@@ -76,6 +163,9 @@ public class HikeDetailServlet extends HttpServlet {
             log("Database error: " + e.getMessage(), e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR); 
             response.getWriter().write(gson.toJson(new ErrorResponse("Database error: " + e.getMessage())));
+		} catch(IOException e) {
+            // Writing the response failed (usually the client went away); nothing left to send
+            log("Could not write hike response: " + e.getMessage());
 		} catch(Exception e) {
             e.printStackTrace();
             System.out.println("HikeDetailServlet: Exception - " + e.getMessage());
@@ -85,229 +175,286 @@ public class HikeDetailServlet extends HttpServlet {
 		}
 	}
 	
-	private HikeDetail getHikeById(int hikeId) throws SQLException {
-		// First, get the basic hike info
-		String sql = "SELECT h.hike_id, h.name, h.location_text, h.distance, h.difficulty, " +
-					"h.elevation, h.created_by, h.created_at, h.description, " +
-					"u.username AS created_by_username " +
-					"FROM hikes h " +
-					"LEFT JOIN users u ON h.created_by = u.user_id " +
-					"WHERE h.hike_id = ?";
+	/**
+	 * The hike page: the detail and the review list are independent reads, so the
+	 * reviews run on ParallelReads while this thread reads the detail, and the response
+	 * waits for the slower one rather than both in turn. The review summary (average
+	 * and count) is taken from the detail's hike_stats columns, so both halves of the
+	 * page show the same figures.
+	 */
+	private void writeHikePage(HttpServletRequest request, HttpServletResponse response, int hikeId)
+			throws SQLException, IOException {
+		// Null when signed out; the review list's upvote flags depend on it. Read here rather
+		// than through AuthFilter, which would otherwise have to run on every /api/hikes/* request.
+		Integer currentUserId = getUserIdFromCookie(request);
 		
-		// Separate query for ratings to avoid GROUP BY issues
-		String ratingSql = "SELECT COALESCE(AVG(rating), 0.0) AS average_rating, " +
-						  "COUNT(*) AS total_ratings " +
-						  "FROM reviews WHERE hike_id = ?";
+		HikeVersions.Stamp stamp = HikeVersions.getInstance().current(hikeId);
+		String etag = HikeVersions.getInstance().etag(hikeId, stamp, "page-u" + currentUserId);
+		if (HikeVersions.isNotModified(request, etag, stamp.getLastModified())) {
+			HikeVersions.setValidators(response, etag, stamp.getLastModified());
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
 		
-		System.out.println("HikeDetailServlet: Executing query for hikeId: " + hikeId);
+		System.out.println("HikeDetailServlet: Fetching page for hike ID: " + hikeId);
+		
+		Future<List<ReviewResponse>> reviews = ParallelReads.submit(() -> reviewDao.getReviewsForHike(hikeId, currentUserId));
 		
-		Connection conn = null;
+		HikeDetail hike;
 		try {
-			conn = DBConnector.getInstance().getConnection();
-			if (conn == null || conn.isClosed()) {
-				throw new SQLException("Database connection is null or closed");
-			}
+			hike = getHikeById(hikeId);
+		} catch (SQLException | RuntimeException e) {
+			reviews.cancel(true);
+			throw e;
+		}
+		if (hike == null) {
+			System.out.println("HikeDetailServlet: Hike not found for ID: " + hikeId);
+			reviews.cancel(true);
+			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+			response.getWriter().write(gson.toJson(new ErrorResponse("Hike not found")));
+			return;
+		}
+		
+		ReviewListResponse reviewList = new ReviewListResponse(
+			hikeId,
+			hike.average_rating,
+			hike.total_ratings,
+			ParallelReads.await(reviews, PAGE_READ_TIMEOUT_MS)
+		);
+		
+		HikeVersions.setValidators(response, etag, stamp.getLastModified());
+		response.setStatus(HttpServletResponse.SC_OK);
+		gson.toJson(new HikePage(hike, reviewList), response.getWriter());
+	}
+	
+	// One round trip: the hike and its creator, the hike_stats aggregates (including the
+	// rating histogram, so the breakdown is read, never counted), and the photo URLs
+	// folded into a JSON array. The photos are aggregated for the requested
+	// hikes only, in upload order: JSON_ARRAYAGG runs as a window function ordered by
+	// (created_at, photo_id) over the whole partition, so every row of a hike carries
+	// the full ordered array and the join keeps the first one.
+	private static final String DETAIL_SQL = detailSql("= ?");
+	
+	/** DETAIL_SQL for hikes whose id satisfies idMatch ("= ?" or "IN (?, ...)"); bind the ids twice. */
+	private static String detailSql(String idMatch) {
+		return "SELECT h.hike_id, h.name, h.location_text, h.distance, h.difficulty, " +
+			"h.elevation, h.created_by, h.created_at, h.description, " +
+			"u.username AS created_by_username, " +
+			"COALESCE(s.avg_rating, 0.0) AS average_rating, COALESCE(s.review_count, 0) AS total_ratings, " +
+			"p.images, " + histogramSelect() +
+			"FROM hikes h " +
+			"LEFT JOIN users u ON h.created_by = u.user_id " +
+			"LEFT JOIN hike_stats s ON s.hike_id = h.hike_id " +
+			"LEFT JOIN (SELECT hike_id, JSON_ARRAYAGG(image_url) OVER w AS images, ROW_NUMBER() OVER w AS rn " +
+			"           FROM photos WHERE hike_id " + idMatch + " " +
+			"           WINDOW w AS (PARTITION BY hike_id ORDER BY created_at ASC, photo_id ASC " +
+			"                        ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING)) p " +
+			"       ON p.hike_id = h.hike_id AND p.rn = 1 " +
+			"WHERE h.hike_id " + idMatch;
+	}
+	
+	// s.ratings_10, s.ratings_15, ... s.ratings_50
+	private static String histogramSelect() {
+		StringBuilder columns = new StringBuilder();
+		for (int bucket = 0; bucket < HikeStatsDao.HISTOGRAM_BUCKETS; bucket++) {
+			columns.append(bucket == 0 ? "s." : ", s.").append(HikeStatsDao.histogramColumn(bucket));
+		}
+		return columns.append(' ').toString();
+	}
+	
+	// Column positions in DETAIL_SQL, so the row is read by index rather than by label
+	private static final int COL_HIKE_ID = 1;
+	private static final int COL_NAME = 2;
+	private static final int COL_LOCATION_TEXT = 3;
+	private static final int COL_DISTANCE = 4;
+	private static final int COL_DIFFICULTY = 5;
+	private static final int COL_ELEVATION = 6;
+	private static final int COL_CREATED_BY = 7;
+	private static final int COL_CREATED_AT = 8;
+	private static final int COL_DESCRIPTION = 9;
+	private static final int COL_CREATED_BY_USERNAME = 10;
+	private static final int COL_AVERAGE_RATING = 11;
+	private static final int COL_TOTAL_RATINGS = 12;
+	private static final int COL_IMAGES = 13;
+	private static final int COL_HISTOGRAM_FIRST = 14; // followed by the other eight buckets
+	
+	private HikeDetail getHikeById(int hikeId) throws SQLException {
+		System.out.println("HikeDetailServlet: Executing query for hikeId: " + hikeId);
+		
+		try (Connection conn = DBConnector.getInstance().getConnection();
+			 PreparedStatement pstmt = conn.prepareStatement(DETAIL_SQL)) {
+			pstmt.setInt(1, hikeId);
+			pstmt.setInt(2, hikeId);
 			
-			// Get basic hike info
-			try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-				pstmt.setInt(1, hikeId);
-				
-				try (ResultSet rs = pstmt.executeQuery()) {
-					if (rs.next()) {
-						System.out.println("HikeDetailServlet: Found hike in database");
-						
-						// Get all photos for this hike using the same connection
-						List<String> images = getHikePhotos(hikeId, conn);
-						
-						// Map difficulty number to string - handle null difficulty
-						double difficultyNum = 2.0; // default
-						try {
-							difficultyNum = rs.getDouble("difficulty");
-							if (rs.wasNull()) {
-								difficultyNum = 2.0;
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading difficulty, using default");
-							difficultyNum = 2.0;
-						}
-						
-						// Map difficulty number to string
-						// Backend stores: Easy=1.0, Moderate=2.5, Hard=4.0, Expert=5.0
-						String difficultyStr = "Moderate";
-						if (difficultyNum <= 1.5) difficultyStr = "Easy";        // 1.0
-						else if (difficultyNum <= 3.0) difficultyStr = "Moderate"; // 2.5
-						else if (difficultyNum <= 4.5) difficultyStr = "Hard";    // 4.0
-						else difficultyStr = "Expert";                             // 5.0
-						
-						// Properly handle nullable elevation
-						Integer elevation = null;
-						try {
-							int elev = rs.getInt("elevation");
-							if (!rs.wasNull()) {
-								elevation = elev;
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading elevation");
-						}
-						
-						// Properly handle nullable timestamp
-						String createdAt = null;
-						try {
-							java.sql.Timestamp timestamp = rs.getTimestamp("created_at");
-							if (timestamp != null) {
-								createdAt = timestamp.toString();
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading created_at");
-						}
-						
-						// Properly handle nullable created_by
-						Integer createdBy = null;
-						try {
-							int cb = rs.getInt("created_by");
-							if (!rs.wasNull()) {
-								createdBy = cb;
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading created_by");
-						}
-						
-						String createdByUsername = "";
-						try {
-							String username = rs.getString("created_by_username");
-							if (username != null) {
-								createdByUsername = username;
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading created_by_username");
-						}
-						
-						// Get name and location_text with null handling
-						String name = "";
-						try {
-							String n = rs.getString("name");
-							if (n != null) {
-								name = n;
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading name");
-						}
-						
-						String locationText = "";
-						try {
-							String loc = rs.getString("location_text");
-							if (loc != null) {
-								locationText = loc;
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading location_text");
-						}
-						
-						// Get distance with null handling
-						double distance = 0.0;
-						try {
-							distance = rs.getDouble("distance");
-							if (rs.wasNull()) {
-								distance = 0.0;
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading distance");
-						}
-						
-						// Get hike_id
-						int hikeIdValue = 0;
-						try {
-							hikeIdValue = rs.getInt("hike_id");
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading hike_id");
-							hikeIdValue = hikeId; // fallback to parameter
-						}
-						
-						// Get ratings separately to avoid GROUP BY issues
-						double averageRating = 0.0;
-						int totalRatings = 0;
-						try (PreparedStatement ratingStmt = conn.prepareStatement(ratingSql)) {
-							ratingStmt.setInt(1, hikeId);
-							try (ResultSet ratingRs = ratingStmt.executeQuery()) {
-								if (ratingRs.next()) {
-									averageRating = ratingRs.getDouble("average_rating");
-									if (ratingRs.wasNull()) {
-										averageRating = 0.0;
-									}
-									totalRatings = ratingRs.getInt("total_ratings");
-									if (ratingRs.wasNull()) {
-										totalRatings = 0;
-									}
-								}
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error fetching ratings: " + e.getMessage());
-							// Continue with default values
-						}
-						
-						// Get description from database
-						String description = "";
-						try {
-							String desc = rs.getString("description");
-							if (desc != null && !desc.isBlank()) {
-								description = desc;
-							}
-						} catch (SQLException e) {
-							System.out.println("HikeDetailServlet: Error reading description (column may not exist yet)");
-							// If column doesn't exist, description will remain empty
-						}
-						
-						return new HikeDetail(
-							hikeIdValue,
-							name,
-							locationText,
-							difficultyStr,
-							distance,
-							elevation,
-							images,
-							averageRating,
-							totalRatings,
-							createdByUsername,
-							createdBy != null ? createdBy : 0,
-							createdAt,
-							description
-						);
-					}
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (rs.next()) {
+					System.out.println("HikeDetailServlet: Found hike in database");
+					return mapHikeDetail(rs);
 				}
 			}
 		} catch (SQLException e) {
 			System.out.println("HikeDetailServlet: SQLException in getHikeById: " + e.getMessage());
 			e.printStackTrace();
 			throw e; // Re-throw to be handled by caller
-		} finally {
-			// Don't close the shared connection - it's managed by DBConnector
-			// The connection will be reused for other requests
 		}
 		
 		return null;
 	}
 	
-	private List<String> getHikePhotos(int hikeId, Connection conn) throws SQLException {
-		List<String> photos = new ArrayList<>();
-		String sql = "SELECT image_url FROM photos WHERE hike_id = ? ORDER BY created_at ASC";
+	/**
+	 * GET /api/hikes/batch?ids=1,2,3: several hikes' details from one query instead of
+	 * one /api/hikes/{id} request each. Returns an object keyed by hike id, in the order
+	 * asked for; ids that don't exist are left out.
+	 */
+	private void writeHikeBatch(HttpServletRequest request, HttpServletResponse response)
+			throws SQLException, IOException {
+		Set<Integer> ids = new LinkedHashSet<>();
+		String[] idParams = request.getParameterValues("ids");
+		if (idParams != null) {
+			for (String param : idParams) {
+				for (String id : param.split(",")) {
+					if (id.isBlank()) {
+						continue;
+					}
+					try {
+						ids.add(Integer.parseInt(id.trim()));
+					} catch (NumberFormatException e) {
+						response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+						response.getWriter().write(gson.toJson(new ErrorResponse("Invalid hike ID format: " + id.trim())));
+						return;
+					}
+				}
+			}
+		}
+		if (ids.isEmpty()) {
+			response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+			response.getWriter().write(gson.toJson(new ErrorResponse("Missing required parameter: ids")));
+			return;
+		}
+		if (ids.size() > MAX_BATCH_IDS) {
+			response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+			response.getWriter().write(gson.toJson(new ErrorResponse("At most " + MAX_BATCH_IDS + " ids per request")));
+			return;
+		}
 		
-		try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-			pstmt.setInt(1, hikeId);
+		System.out.println("HikeDetailServlet: Fetching batch of " + ids.size() + " hikes");
+		
+		Map<Integer, HikeDetail> found = getHikesByIds(ids);
+		Map<String, HikeDetail> result = new LinkedHashMap<>();
+		for (Integer id : ids) {
+			HikeDetail detail = found.get(id);
+			if (detail != null) {
+				result.put(id.toString(), detail);
+			}
+		}
+		
+		response.setStatus(HttpServletResponse.SC_OK);
+		gson.toJson(result, response.getWriter());
+	}
+	
+	private Map<Integer, HikeDetail> getHikesByIds(Set<Integer> ids) throws SQLException {
+		String sql = detailSql("IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")");
+		Map<Integer, HikeDetail> hikes = new HashMap<>();
+		
+		try (Connection conn = DBConnector.getInstance().getConnection();
+			 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			int i = 1;
+			for (int pass = 0; pass < 2; pass++) {
+				for (Integer id : ids) {
+					pstmt.setInt(i++, id);
+				}
+			}
 			
 			try (ResultSet rs = pstmt.executeQuery()) {
 				while (rs.next()) {
-					String imageUrl = rs.getString("image_url");
-					if (imageUrl != null && !imageUrl.isEmpty()) {
-						photos.add(imageUrl);
-					}
+					HikeDetail detail = mapHikeDetail(rs);
+					hikes.put(detail.hike_id, detail);
 				}
 			}
-		} catch (SQLException e) {
-			System.out.println("HikeDetailServlet: Error fetching photos: " + e.getMessage());
-			// Return empty list instead of throwing - photos are optional
 		}
+		return hikes;
+	}
+	
+	private HikeDetail mapHikeDetail(ResultSet rs) throws SQLException {
+		// Missing difficulty maps to Moderate, as before
+		double difficultyNum = rs.getDouble(COL_DIFFICULTY);
+		if (rs.wasNull()) {
+			difficultyNum = 2.0;
+		}
+		
+		// Map difficulty number to string
+		// Backend stores: Easy=1.0, Moderate=2.5, Hard=4.0, Expert=5.0
+		String difficultyStr = "Moderate";
+		if (difficultyNum <= 1.5) difficultyStr = "Easy";        // 1.0
+		else if (difficultyNum <= 3.0) difficultyStr = "Moderate"; // 2.5
+		else if (difficultyNum <= 4.5) difficultyStr = "Hard";    // 4.0
+		else difficultyStr = "Expert";                             // 5.0
+		
+		int elev = rs.getInt(COL_ELEVATION);
+		Integer elevation = rs.wasNull() ? null : elev;
 		
-		return photos;
+		java.sql.Timestamp timestamp = rs.getTimestamp(COL_CREATED_AT);
+		String createdAt = timestamp != null ? timestamp.toString() : null;
+		
+		// getInt/getDouble return 0 for NULL, which is the default the response uses
+		return new HikeDetail(
+			rs.getInt(COL_HIKE_ID),
+			nonNull(rs.getString(COL_NAME)),
+			nonNull(rs.getString(COL_LOCATION_TEXT)),
+			difficultyStr,
+			rs.getDouble(COL_DISTANCE),
+			elevation,
+			parseImages(rs.getString(COL_IMAGES)),
+			rs.getDouble(COL_AVERAGE_RATING),
+			rs.getInt(COL_TOTAL_RATINGS),
+			nonNull(rs.getString(COL_CREATED_BY_USERNAME)),
+			rs.getInt(COL_CREATED_BY),
+			createdAt,
+			rs.getString(COL_DESCRIPTION),
+			mapHistogram(rs)
+		);
+	}
+	
+	// {"1.0": n, "1.5": n, ... "5.0": n}; all zero when the hike has no hike_stats row
+	private Map<String, Integer> mapHistogram(ResultSet rs) throws SQLException {
+		Map<String, Integer> histogram = new LinkedHashMap<>();
+		for (int bucket = 0; bucket < HikeStatsDao.HISTOGRAM_BUCKETS; bucket++) {
+			histogram.put(String.valueOf(1.0 + bucket * 0.5), rs.getInt(COL_HISTOGRAM_FIRST + bucket));
+		}
+		return histogram;
+	}
+	
+	// The JSON_ARRAYAGG column is NULL when the hike has no photos
+	private List<String> parseImages(String imagesJson) {
+		List<String> images = new ArrayList<>();
+		if (imagesJson == null) {
+			return images;
+		}
+		for (JsonElement url : JsonParser.parseString(imagesJson).getAsJsonArray()) {
+			if (!url.isJsonNull() && !url.getAsString().isEmpty()) {
+				images.add(url.getAsString());
+			}
+		}
+		return images;
+	}
+	
+	private static String nonNull(String value) {
+		return value != null ? value : "";
+	}
+	
+	private Integer getUserIdFromCookie(HttpServletRequest req) {
+		Cookie[] cookies = req.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if ("accessToken".equals(cookie.getName())) {
+					String token = cookie.getValue();
+					if (token != null && JwtUtil.validateToken(token)) {
+						return JwtUtil.getUserIdFromToken(token);
+					}
+				}
+			}
+		}
+		return null;
 	}
 	
 	private void setCorsHeaders(HttpServletResponse resp) {
@@ -329,6 +476,17 @@ public class HikeDetailServlet extends HttpServlet {
         ErrorResponse(String error) { this.error = error; }
     }
 	
+	// Response for /api/hikes/{id}/page
+	private static class HikePage {
+		private HikeDetail hike;
+		private ReviewListResponse reviews;
+		
+		HikePage(HikeDetail hike, ReviewListResponse reviews) {
+			this.hike = hike;
+			this.reviews = reviews;
+		}
+	}
+	
 	// Inner class for hike detail response
 	private static class HikeDetail {
 		private int hike_id;
@@ -344,11 +502,13 @@ public class HikeDetailServlet extends HttpServlet {
 		private int created_by;
 		private String created_at;
 		private String description; // Added for frontend compatibility
+		private Map<String, Integer> rating_histogram;
 		
 		public HikeDetail(int hike_id, String name, String location_text, String difficulty,
 						 double distance, Integer elevation, List<String> images,
 						 double average_rating, int total_ratings, String created_by_username,
-						 int created_by, String created_at, String description) {
+						 int created_by, String created_at, String description,
+						 Map<String, Integer> rating_histogram) {
 			this.hike_id = hike_id;
 			this.name = name;
 			this.location_text = location_text;
@@ -361,7 +521,8 @@ public class HikeDetailServlet extends HttpServlet {
 			this.created_by_username = created_by_username;
 			this.created_by = created_by;
 			this.created_at = created_at;
-			this.description = description != null ? description : ""; // Default to empty string
+			this.description = description != null && !description.isBlank() ? description : ""; // Default to empty string
+			this.rating_histogram = rating_histogram;
 		}
 	}
 }
@@ -0,0 +1,127 @@
+package servlets;
+
+import search.HikeSearchIndex;
+import search.SearchResultCache;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admin controls for the in-memory hike search index.
+ *
+ * GET  /api/admin/search                  -> index status
+ * POST /api/admin/search?action=rebuild   -> reload the index from MySQL
+ * POST /api/admin/search?action=enable    -> serve /api/hikes from the index
+ * POST /api/admin/search?action=disable   -> serve /api/hikes from SQL
+ * POST /api/admin/search?action=clear-cache -> drop cached search results
+ *
+ * Requires the X-Admin-Token header to match the hikes.admin.token system property.
+ * When that property is not set, the endpoint is disabled.
+ */
+@WebServlet("/api/admin/search")
+public class SearchAdminServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        if (!checkAdmin(req, resp)) {
+            return;
+        }
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.getWriter().write(gson.toJson(status()));
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        if (!checkAdmin(req, resp)) {
+            return;
+        }
+
+        HikeSearchIndex index = HikeSearchIndex.getInstance();
+        String action = req.getParameter("action");
+        try {
+            if ("rebuild".equalsIgnoreCase(action)) {
+                index.rebuild();
+            } else if ("enable".equalsIgnoreCase(action)) {
+                index.setEnabled(true);
+            } else if ("disable".equalsIgnoreCase(action)) {
+                index.setEnabled(false);
+            } else if ("clear-cache".equalsIgnoreCase(action)) {
+                SearchResultCache.getInstance().invalidateAll();
+            } else {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                resp.getWriter().write(gson.toJson(error("action must be one of: rebuild, enable, disable, clear-cache")));
+                return;
+            }
+        } catch (SQLException e) {
+            log("Search index rebuild failed: " + e.getMessage(), e);
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            resp.getWriter().write(gson.toJson(error("Database error: " + e.getMessage())));
+            return;
+        }
+
+        System.out.println("SearchAdminServlet: action=" + action + " done");
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.getWriter().write(gson.toJson(status()));
+    }
+
+    private JsonObject status() {
+        HikeSearchIndex index = HikeSearchIndex.getInstance();
+        JsonObject status = new JsonObject();
+        status.addProperty("enabled", index.isEnabled());
+        status.addProperty("ready", index.isReady());
+        status.addProperty("serving", index.isServing());
+        status.addProperty("hikes", index.size());
+        status.addProperty("lastRebuildMillis", index.getLastRebuildMillis());
+
+        SearchResultCache cache = SearchResultCache.getInstance();
+        JsonObject cacheStatus = new JsonObject();
+        cacheStatus.addProperty("enabled", cache.isEnabled());
+        cacheStatus.addProperty("entries", cache.size());
+        cacheStatus.addProperty("hits", cache.getHits());
+        cacheStatus.addProperty("misses", cache.getMisses());
+        cacheStatus.addProperty("evictions", cache.getEvictions());
+        cacheStatus.addProperty("invalidations", cache.getInvalidations());
+        status.add("cache", cacheStatus);
+        return status;
+    }
+
+    private boolean checkAdmin(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String expected = System.getProperty("hikes.admin.token");
+        if (expected == null || expected.isEmpty()) {
+            resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            resp.getWriter().write(gson.toJson(error("Admin endpoints are disabled")));
+            return false;
+        }
+        String provided = req.getHeader("X-Admin-Token");
+        if (provided == null || !MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), provided.getBytes(StandardCharsets.UTF_8))) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            resp.getWriter().write(gson.toJson(error("Invalid admin token")));
+            return false;
+        }
+        return true;
+    }
+
+    private JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error;
+    }
+}
@@ -2,12 +2,26 @@ package servlets;
 
 import database.DBConnector;
 import database.Hike; 
+import search.BoundingBox;
+import search.HikeSearchIndex;
+import search.SearchCriteria;
+import search.SearchCursor;
+import search.SearchPage;
+import search.SearchResultCache;
+import util.SingleFlight;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.ArrayList;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,12 +30,20 @@ import jakarta.servlet.ServletException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Timestamp;
 
 @WebServlet("/api/hikes")
 public class SearchServlet extends HttpServlet {
 	private static final long serialVersionUID = 1L;
 	
+	// Rows per round trip for streamed searches (server-side cursor, see DBConnector)
+	private static final int STREAM_FETCH_SIZE = 500;
+	// Flush the response every this many rows so the client starts receiving early
+	private static final int STREAM_FLUSH_ROWS = 100;
+	
 	private final Gson gson = new Gson();
+	// Identical paged / faceted SQL searches running at the same time share one query (keyed by SearchCriteria.cacheKey())
+	private final SingleFlight<String, byte[]> searchFlights = new SingleFlight<>();
 	
 	protected void doGet(HttpServletRequest request, HttpServletResponse response)
 		throws ServletException, IOException {
@@ -32,17 +54,23 @@ public class SearchServlet extends HttpServlet {
 		response.setContentType("application/json");
 		response.setCharacterEncoding("UTF-8");
 		
-		// --- 1. Parameter Extraction ---
-		String searchQuery = request.getParameter("q");
-		String difficulty = request.getParameter("difficulty");
-		String minLengthStr = request.getParameter("min_length");
-		String maxLengthStr = request.getParameter("max_length");
-		String minRatingStr = request.getParameter("min_rating");
-		
 		try {
-			// List of Hike objects returned from the database
-			List<Hike> hikes = executeSearch(searchQuery, difficulty, minLengthStr,
-												maxLengthStr, minRatingStr);
+			// --- 1. Parameter Extraction ---
+			// Parse numbers safely (throws NumberFormatException on bad input)
+			SearchCriteria criteria = SearchCriteria.fromRequest(request);
+			
+			HikeSearchIndex index = HikeSearchIndex.getInstance();
+			// Fuzzy matching only exists in the index, so it answers those whenever it is loaded
+			boolean fromIndex = index.isServing() || (criteria.isFuzzy() && index.isReady());
+			
+			if (!fromIndex) {
+				searchDatabase(criteria, response);
+				return;
+			}
+			
+			// List of Hike objects from the in-memory index
+			SearchPage page = index.search(criteria);
+			List<Hike> hikes = page.getHikes();
 			
 			// Debug: Log first hike's created_by value
 			if (!hikes.isEmpty()) {
@@ -51,8 +79,14 @@ public class SearchServlet extends HttpServlet {
 			}
 			
 			// --- 2. JSON Response ---
-			String jsonResponse = gson.toJson(hikes);
-			response.getWriter().write(jsonResponse);
+			// Paged / faceted requests get {"hikes": [...], "next_cursor": "...", "facets": {...}};
+			// others keep the plain array.
+			// Serialize straight to the response writer rather than through an intermediate String.
+			if (criteria.isEnveloped()) {
+				gson.toJson(page, response.getWriter());
+			} else {
+				gson.toJson(hikes, response.getWriter());
+			}
 			
 		} catch(SQLException e){
             log("Database error: " + e.getMessage(), e);
@@ -62,6 +96,12 @@ public class SearchServlet extends HttpServlet {
             log("Client error: Invalid number format provided for filter: " + e.getMessage(), e);
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST); 
             response.getWriter().write(gson.toJson(new ErrorResponse("Filter parameters must be valid numbers.")));
+		} catch(IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST); 
+            response.getWriter().write(gson.toJson(new ErrorResponse(e.getMessage())));
+		} catch(IOException e) {
+            // Writing the response failed (usually the client went away); nothing left to send
+            log("Could not write search response: " + e.getMessage());
 		} catch(Exception e) {
             log("Server error: " + e.getMessage(), e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR); 
@@ -76,152 +116,407 @@ public class SearchServlet extends HttpServlet {
     }
 	
 	
-	private List<Hike> executeSearch(String searchQuery, String difficulty, String minLengthStr, 
-            String maxLengthStr, String minRatingStr) throws SQLException, NumberFormatException {
+	/**
+	 * Answer a search from MySQL: from the result cache when possible, otherwise by
+	 * running the query. Paged / faceted searches go through searchFlights, so
+	 * identical concurrent ones run it once and share the body. Unpaged searches are
+	 * streamed to each client on their own: coalescing them would make every waiting
+	 * caller depend on the leader's client reading its response.
+	 */
+	private void searchDatabase(SearchCriteria criteria, HttpServletResponse response) throws SQLException, IOException {
+		SearchResultCache cache = SearchResultCache.getInstance();
+		String key = criteria.cacheKey();
+		if (cache.isEnabled()) {
+			byte[] cached = cache.get(key);
+			if (cached != null) {
+				writeBody(response, cached);
+				return;
+			}
+		}
+		long cacheGeneration = cache.generation();
+		
+		if (!criteria.isEnveloped()) {
+			streamSearch(criteria, response, cacheGeneration);
+			return;
+		}
+		
+		// Built without touching the response; every caller (the leader too) writes it afterwards
+		byte[] body = searchFlights.execute(key, () -> {
+			byte[] envelope = gson.toJson(buildPage(criteria)).getBytes(StandardCharsets.UTF_8);
+			cache.put(key, envelope, cacheGeneration);
+			return envelope;
+		});
+		writeBody(response, body);
+	}
+	
+	/**
+	 * Paged / faceted SQL result, with facet counts from the in-memory bitmaps when loaded.
+	 */
+	private SearchPage buildPage(SearchCriteria criteria) throws SQLException {
+		SearchPage page = executeSearch(criteria);
+		HikeSearchIndex index = HikeSearchIndex.getInstance();
+		if (criteria.wantsFacets() && index.isReady()) {
+			page.setFacets(index.facets(criteria));
+		}
+		
+		// Debug: Log first hike's created_by value
+		if (!page.getHikes().isEmpty()) {
+			System.out.println("SearchServlet: First hike created_by = " + page.getHikes().get(0).getCreated_by());
+		}
+		return page;
+	}
+	
+	private void writeBody(HttpServletResponse response, byte[] body) throws IOException {
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+	
+	/**
+	 * Run the search and collect the matching hikes. Used for paged requests,
+	 * which hold at most limit + 1 rows.
+	 */
+	private SearchPage executeSearch(SearchCriteria criteria) throws SQLException {
 
         // The list of parameters to be safely inserted into the PreparedStatement
 		List<Object> params = new ArrayList<>();
+		String sql = buildSearchSql(criteria, params);
         // The final list of Hike objects to return
 		List<Hike> foundHikes = new ArrayList<>();
+		
+        // Sort key of the last row kept, for next_cursor
+		boolean hasMore = false;
+		BigDecimal lastRating = null;
+		Timestamp lastCreatedAt = null;
 
-        // --- 1. Parse Parameters and Map Difficulty ---
-        // Parse numbers safely (throws NumberFormatException on bad input)
-		Double minLength = (minLengthStr != null && !minLengthStr.isEmpty()) ? Double.parseDouble(minLengthStr) : null;
-		Double maxLength = (maxLengthStr != null && !maxLengthStr.isEmpty()) ? Double.parseDouble(maxLengthStr) : null;
-		Double minRating = (minRatingStr != null && !minRatingStr.isEmpty()) ? Double.parseDouble(minRatingStr) : null;
-		
-        // Map difficulty string to exact DB values
-        // Match the difficulty mapping used in AddHikeServlet:
-        // Easy: 1, Moderate: 2.5, Hard: 4, Expert: 5
-        // Use exact values or very tight ranges to match these specific values
-		Double difficultyValue = null;
-        
-		if (difficulty != null && !difficulty.equalsIgnoreCase("All")) {
-			if (difficulty.equalsIgnoreCase("Easy")) {
-				difficultyValue = 1.0;
-			} else if (difficulty.equalsIgnoreCase("Moderate")) {
-				difficultyValue = 2.5;
-			} else if (difficulty.equalsIgnoreCase("Hard")) {
-				difficultyValue = 4.0;
-			} else if (difficulty.equalsIgnoreCase("Expert")) {
-				difficultyValue = 5.0;
+        // --- 3. JDBC Execution ---
+		try (Connection conn = DBConnector.getInstance().getConnection(); 
+			 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			bindParams(pstmt, params);
+			
+			try (ResultSet rs = pstmt.executeQuery()) {
+                // --- 4. Map Results to Hike Objects ---
+				int hikeCount = 0;
+				while (rs.next()) {
+					if (criteria.isPaged() && foundHikes.size() == criteria.getLimit()) {
+						// The extra row exists, so there is another page after the last one we kept
+						hasMore = true;
+						break;
+					}
+					hikeCount++;
+					foundHikes.add(mapHike(rs, hikeCount, criteria)); 
+					lastRating = rs.getBigDecimal("average_rating");
+					lastCreatedAt = rs.getTimestamp("created_at");
+				}
+				System.out.println("SearchServlet: Total hikes found = " + hikeCount);
 			}
 		}
+		
+		String nextCursor = null;
+		if (hasMore && !criteria.sortByRelevance() && !criteria.sortByDistance() && !foundHikes.isEmpty()) {
+			Hike last = foundHikes.get(foundHikes.size() - 1);
+			nextCursor = new SearchCursor(lastRating,
+					lastCreatedAt != null ? lastCreatedAt.getTime() : 0L,
+					last.getHike_id()).encode();
+		}
+		return new SearchPage(foundHikes, nextCursor);
+	}
+	
+	/**
+	 * Run an unpaged search and write the JSON array straight from the ResultSet:
+	 * rows are fetched STREAM_FETCH_SIZE at a time through a server-side cursor and
+	 * each one is written as soon as it is read, so memory stays flat however many
+	 * hikes match and the first bytes go out before the last row is read.
+	 *
+	 * Errors before the first byte is written are thrown as usual. Once the response
+	 * is committed the status can no longer change, so a later failure is logged and
+	 * the body is left truncated (invalid JSON) for the client to detect.
+	 *
+	 * The bytes written are also captured, up to SearchResultCache.MAX_ENTRY_BYTES.
+	 * Once the array is complete they are cached and returned. Returns null when the
+	 * result was larger than that or the stream broke off.
+	 */
+	private byte[] streamSearch(SearchCriteria criteria, HttpServletResponse response,
+			long cacheGeneration) throws SQLException, IOException {
+		List<Object> params = new ArrayList<>();
+		String sql = buildSearchSql(criteria, params);
 
+		try (Connection conn = DBConnector.getInstance().getConnection(); 
+			 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			bindParams(pstmt, params);
+			pstmt.setFetchSize(STREAM_FETCH_SIZE);
+			
+			try (ResultSet rs = pstmt.executeQuery()) {
+				CapturingOutputStream out = new CapturingOutputStream(response.getOutputStream(),
+						SearchResultCache.MAX_ENTRY_BYTES);
+				JsonWriter writer = new JsonWriter(new BufferedWriter(
+						new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+				int hikeCount = 0;
+				try {
+					writer.beginArray();
+					while (rs.next()) {
+						hikeCount++;
+						gson.toJson(mapHike(rs, hikeCount, criteria), Hike.class, writer);
+						if (hikeCount % STREAM_FLUSH_ROWS == 0) {
+							writer.flush();
+						}
+					}
+					writer.endArray();
+					writer.flush();
+				} catch (SQLException e) {
+					if (!response.isCommitted()) {
+						// Nothing has reached the client yet: discard the partial body and report a normal 500
+						response.reset();
+						setCorsHeaders(response);
+						response.setContentType("application/json");
+						response.setCharacterEncoding("UTF-8");
+						throw e;
+					}
+					log("Database error after streaming " + hikeCount + " hikes: " + e.getMessage(), e);
+					return null;
+				}
+				System.out.println("SearchServlet: Total hikes streamed = " + hikeCount);
+				
+				byte[] body = out.getCaptured();
+				if (body != null) {
+					SearchResultCache.getInstance().put(criteria.cacheKey(), body, cacheGeneration);
+				}
+				return body;
+			}
+		}
+	}
+	
+	/**
+	 * Passes bytes through to the response and keeps a copy of them, as long as the
+	 * total stays within limit. Lets a streamed response be cached without buffering
+	 * large results.
+	 */
+	private static class CapturingOutputStream extends OutputStream {
+		private final OutputStream target;
+		private final int limit;
+		private ByteArrayOutputStream copy;
+		
+		CapturingOutputStream(OutputStream target, int limit) {
+			this.target = target;
+			this.limit = limit;
+			this.copy = limit > 0 ? new ByteArrayOutputStream() : null;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			target.write(b);
+			capture(new byte[] { (byte) b }, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			target.write(b, off, len);
+			capture(b, off, len);
+		}
+		
+		private void capture(byte[] b, int off, int len) {
+			if (copy == null) {
+				return;
+			}
+			if (copy.size() + len > limit) {
+				copy = null; // too big to cache, stop copying
+				return;
+			}
+			copy.write(b, off, len);
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			target.flush();
+		}
+		
+		/**
+		 * Everything written so far, or null if it exceeded the limit.
+		 */
+		byte[] getCaptured() {
+			return copy != null ? copy.toByteArray() : null;
+		}
+	}
+	
+	/**
+	 * Build the search SELECT for criteria, appending its bind values to params in order.
+	 */
+	private String buildSearchSql(SearchCriteria criteria, List<Object> params) {
+		String fullTextQuery = criteria.useFullText() ? criteria.toBooleanFullTextQuery() : null;
 
         // --- 2. Build Dynamic SQL Query ---
+        // Ratings and thumbnail come from the denormalized hike_stats row, so there is no
+        // JOIN on reviews, no GROUP BY and no per-row photo subquery. Every hike has a
+        // stats row (created with the hike), and it carries all of the rating sort keys
+        // (avg_rating, created_at, hike_id), so idx_hike_stats_rating_order serves the
+        // ORDER BY and the cursor seek.
 		StringBuilder sql = new StringBuilder();
 		sql.append("SELECT h.hike_id, h.name, h.location_text, h.description, h.distance, h.difficulty, ");
-		sql.append("COALESCE(AVG(r.rating), 0.0) AS average_rating, ");
-		sql.append("COALESCE(COUNT(r.review_id), 0) AS total_ratings, ");
-		// Subquery to get one photo's URL for the thumbnail
-		sql.append("(SELECT p.image_url FROM photos p WHERE p.hike_id = h.hike_id ORDER BY p.created_at ASC LIMIT 1) AS thumbnail_url, ");
-		sql.append("h.created_by ");
-		sql.append("FROM hikes h LEFT JOIN reviews r ON h.hike_id = r.hike_id ");
+		sql.append("s.avg_rating AS average_rating, ");
+		sql.append("s.review_count AS total_ratings, ");
+		sql.append("s.thumbnail_url, ");
+		sql.append("h.created_by, s.created_at ");
+		if (fullTextQuery != null) {
+			sql.append(", MATCH(h.name, h.location_text, h.description) AGAINST (? IN BOOLEAN MODE) AS relevance ");
+			params.add(fullTextQuery);
+		}
+		if (criteria.hasOrigin()) {
+			// Great-circle km from the user's position; NULL for hikes without coordinates
+			sql.append(", CASE WHEN h.latitude IS NULL OR h.longitude IS NULL THEN NULL ");
+			sql.append("ELSE ROUND(ST_Distance_Sphere(h.location, POINT(?, ?)) / 1000, 3) END AS distance_km ");
+			params.add(criteria.getLongitude());
+			params.add(criteria.getLatitude());
+		}
+		sql.append("FROM hike_stats s INNER JOIN hikes h ON h.hike_id = s.hike_id ");
 		sql.append("WHERE 1=1 "); // Base condition for easy AND appending
 
-        // Append Search Condition (q)
-		if (searchQuery != null && !searchQuery.trim().isEmpty()) {
+        // Append Search Condition (q): FULLTEXT index when the query has indexable words,
+        // otherwise the old substring match on name/location (e.g. "mt" or "a")
+		if (fullTextQuery != null) {
+			sql.append("AND MATCH(h.name, h.location_text, h.description) AGAINST (? IN BOOLEAN MODE) ");
+			params.add(fullTextQuery);
+		} else if (criteria.hasQuery()) {
 			sql.append("AND (LOWER(h.name) LIKE LOWER(?) OR LOWER(h.location_text) LIKE LOWER(?)) ");
-			params.add("%" + searchQuery + "%"); 
-			params.add("%" + searchQuery + "%");
+			params.add("%" + criteria.getQuery() + "%"); 
+			params.add("%" + criteria.getQuery() + "%");
 		}
 
         // Append Difficulty Filter (using exact value matching)
-		if (difficultyValue != null) {
+		if (criteria.getDifficulty() != null) {
 			// Use a small range (±0.1) to account for any floating point precision issues
 			sql.append("AND h.difficulty >= ? AND h.difficulty <= ? "); 
-			params.add(difficultyValue - 0.1);
-			params.add(difficultyValue + 0.1);
+			params.add(criteria.getDifficulty() - 0.1);
+			params.add(criteria.getDifficulty() + 0.1);
 		}
 
         // Append Length Filters
-		if (minLength != null) {
+		if (criteria.getMinLength() != null) {
 			sql.append("AND h.distance >= ? ");
-			params.add(minLength);
+			params.add(criteria.getMinLength());
 		}
-		if (maxLength != null) {
+		if (criteria.getMaxLength() != null) {
 			sql.append("AND h.distance <= ? ");
-			params.add(maxLength);
+			params.add(criteria.getMaxLength());
 		}
 
-        // Group By Clause (Required for AVG(r.rating) and thumbnail subquery)
-		sql.append("GROUP BY h.hike_id, h.name, h.location_text, h.description, h.distance, h.difficulty, h.elevation, h.created_at, h.created_by ");
+        // Append Minimum Rating Filter (plain WHERE predicate on hike_stats.avg_rating).
+        // Hikes without reviews have a rating of 0, so they only match when
+        // min_rating <= 0 (in which case no filter is needed).
+		if (criteria.hasMinRatingFilter()) {
+			sql.append("AND s.avg_rating >= ? ");
+			params.add(criteria.getMinRating());
+		}
+
+        // Append Location Filters: the box (bbox and/or the square around radius_km) is
+        // answered by the SPATIAL index on hikes.location; only rows inside it get the exact
+        // distance check, instead of computing the distance for every hike.
+		BoundingBox box = criteria.getBoundingBox();
+		if (box != null) {
+			sql.append("AND h.latitude IS NOT NULL AND h.longitude IS NOT NULL ");
+			sql.append("AND MBRCoveredBy(h.location, ST_MakeEnvelope(POINT(?, ?), POINT(?, ?))) ");
+			params.add(box.getWest());
+			params.add(box.getSouth());
+			params.add(box.getEast());
+			params.add(box.getNorth());
+		}
+		if (criteria.getRadiusKm() != null) {
+			sql.append("AND ST_Distance_Sphere(h.location, POINT(?, ?)) <= ? ");
+			params.add(criteria.getLongitude());
+			params.add(criteria.getLatitude());
+			params.add(criteria.getRadiusKm() * 1000);
+		}
 		
-        // Append Minimum Rating Filter (HAVING clause)
-		if (minRating != null) {
-			sql.append("HAVING COALESCE(AVG(r.rating), 0.0) >= ? ");
-			params.add(minRating);
+        // Keyset pagination: seek past the last row of the previous page instead of OFFSET,
+        // so page N costs the same as page 1. hike_id breaks ties to keep the order total.
+        // The row comparison is on the raw index columns, so MySQL can start the backward
+        // index scan at the cursor instead of filtering and sorting the whole catalog.
+		SearchCursor cursor = criteria.getCursor();
+		if (cursor != null) {
+			sql.append("AND (s.avg_rating, s.created_at, s.hike_id) < (?, ?, ?) ");
+			params.add(cursor.getAverageRating());
+			params.add(new Timestamp(cursor.getCreatedAtMillis()));
+			params.add(cursor.getHikeId());
 		}
 		
         // Final Ordering
-		sql.append("ORDER BY average_rating DESC, h.created_at DESC ");
-
-
-        // --- 3. JDBC Execution ---
-		try (Connection conn = DBConnector.getInstance().getConnection(); 
-			 PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
-			
-            // Set parameters onto the PreparedStatement
-			int index = 1;
-			for (Object param : params) {
-                if (param instanceof String) {
-                    pstmt.setString(index++, (String) param);
-                } else if (param instanceof Double) {
-                    pstmt.setDouble(index++, (Double) param);
-                } else {
-                    pstmt.setObject(index++, param);
-                }
-			}
-			
-			try (ResultSet rs = pstmt.executeQuery()) {
-                // --- 4. Map Results to Hike Objects ---
-				int hikeCount = 0;
-				while (rs.next()) {
-					hikeCount++;
-					Integer createdBy = null;
-					try {
-						int cb = rs.getInt("created_by");
-						if (!rs.wasNull()) {
-							createdBy = cb;
-							if (hikeCount <= 3) {
-								System.out.println("SearchServlet: Hike #" + hikeCount + " - created_by from DB = " + createdBy);
-							}
-						} else {
-							if (hikeCount <= 3) {
-								System.out.println("SearchServlet: Hike #" + hikeCount + " - created_by is NULL in DB");
-							}
-						}
-					} catch (Exception e) {
-						// created_by is null, leave it as null
-						if (hikeCount <= 3) {
-							System.out.println("SearchServlet: Hike #" + hikeCount + " - Error reading created_by: " + e.getMessage());
-						}
-					}
-					
-					Hike hike = new Hike(
-						rs.getInt("hike_id"),
-						rs.getString("name"),
-						rs.getString("location_text"),
-						rs.getDouble("distance"),
-						rs.getDouble("difficulty"),
-						rs.getDouble("average_rating"),
-						rs.getInt("total_ratings"),
-						rs.getString("thumbnail_url"),
-						createdBy
-					);
-					
-					if (hikeCount <= 3) {
-						System.out.println("SearchServlet: Hike object created - created_by = " + hike.getCreated_by());
-					}
-					
-					foundHikes.add(hike); 
+		if (criteria.sortByRelevance()) {
+			sql.append("ORDER BY relevance DESC, s.avg_rating DESC, s.created_at DESC, s.hike_id DESC ");
+		} else if (criteria.sortByDistance()) {
+			sql.append("ORDER BY distance_km IS NULL, distance_km ASC, s.avg_rating DESC, s.created_at DESC, s.hike_id DESC ");
+		} else {
+			sql.append("ORDER BY s.avg_rating DESC, s.created_at DESC, s.hike_id DESC ");
+		}
+		
+        // Fetch one extra row to know whether there is a next page
+		if (criteria.isPaged()) {
+			sql.append("LIMIT ? ");
+			params.add(criteria.getLimit() + 1);
+		}
+		return sql.toString();
+	}
+	
+	private void bindParams(PreparedStatement pstmt, List<Object> params) throws SQLException {
+        // Set parameters onto the PreparedStatement
+		int index = 1;
+		for (Object param : params) {
+            if (param instanceof String) {
+                pstmt.setString(index++, (String) param);
+            } else if (param instanceof Double) {
+                pstmt.setDouble(index++, (Double) param);
+            } else if (param instanceof Integer) {
+                pstmt.setInt(index++, (Integer) param);
+            } else {
+                pstmt.setObject(index++, param);
+            }
+		}
+	}
+	
+	/**
+	 * Map the current row to a Hike. hikeCount is the 1-based row number, used for debug logging.
+	 */
+	private Hike mapHike(ResultSet rs, int hikeCount, SearchCriteria criteria) throws SQLException {
+		Integer createdBy = null;
+		try {
+			int cb = rs.getInt("created_by");
+			if (!rs.wasNull()) {
+				createdBy = cb;
+				if (hikeCount <= 3) {
+					System.out.println("SearchServlet: Hike #" + hikeCount + " - created_by from DB = " + createdBy);
+				}
+			} else {
+				if (hikeCount <= 3) {
+					System.out.println("SearchServlet: Hike #" + hikeCount + " - created_by is NULL in DB");
 				}
-				System.out.println("SearchServlet: Total hikes found = " + hikeCount);
+			}
+		} catch (Exception e) {
+			// created_by is null, leave it as null
+			if (hikeCount <= 3) {
+				System.out.println("SearchServlet: Hike #" + hikeCount + " - Error reading created_by: " + e.getMessage());
+			}
+		}
+		
+		Hike hike = new Hike(
+			rs.getInt("hike_id"),
+			rs.getString("name"),
+			rs.getString("location_text"),
+			rs.getDouble("distance"),
+			rs.getDouble("difficulty"),
+			rs.getDouble("average_rating"),
+			rs.getInt("total_ratings"),
+			rs.getString("thumbnail_url"),
+			createdBy
+		);
+		
+		if (criteria.hasOrigin()) {
+			double distanceKm = rs.getDouble("distance_km");
+			if (!rs.wasNull()) {
+				hike.setDistance_km(distanceKm);
 			}
 		}
 		
-		return foundHikes;
+		if (hikeCount <= 3) {
+			System.out.println("SearchServlet: Hike object created - created_by = " + hike.getCreated_by());
+		}
+		return hike;
 	}
 	
 	private void setCorsHeaders(HttpServletResponse resp) {
@@ -0,0 +1,90 @@
+package servlets;
+
+import search.HikeSearchIndex;
+import search.Suggestion;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.ServletException;
+
+/**
+ * Typeahead for the search box: GET /api/hikes/suggest?prefix=bal&limit=8
+ * Answered from the prefix trie in HikeSearchIndex, without touching MySQL.
+ */
+@WebServlet("/api/hikes/suggest")
+public class SuggestServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_LIMIT = 8;
+    private static final int MAX_LIMIT = 10;
+
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doOptions(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        setCorsHeaders(resp);
+        resp.setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        setCorsHeaders(resp);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        String prefix = req.getParameter("prefix");
+        if (prefix == null || prefix.isBlank()) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            writeError(resp, "Missing required parameter: prefix");
+            return;
+        }
+
+        int limit = DEFAULT_LIMIT;
+        String limitParam = req.getParameter("limit");
+        if (limitParam != null && !limitParam.isEmpty()) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+            if (limit < 1 || limit > MAX_LIMIT) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                writeError(resp, "limit must be between 1 and " + MAX_LIMIT);
+                return;
+            }
+        }
+
+        HikeSearchIndex index = HikeSearchIndex.getInstance();
+        if (!index.isReady()) {
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            writeError(resp, "Suggestions are not available yet");
+            return;
+        }
+
+        List<Suggestion> suggestions = index.suggest(prefix, limit);
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.getWriter().write(gson.toJson(suggestions));
+    }
+
+    private void writeError(HttpServletResponse resp, String msg) throws IOException {
+        JsonObject err = new JsonObject();
+        err.addProperty("error", msg);
+        resp.getWriter().write(gson.toJson(err));
+    }
+
+    private void setCorsHeaders(HttpServletResponse resp) {
+        resp.setHeader("Access-Control-Allow-Origin", "http://localhost:5173");
+        resp.setHeader("Access-Control-Allow-Credentials", "true");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+        resp.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
+    }
+}
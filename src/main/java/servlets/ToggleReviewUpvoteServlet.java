@@ -2,6 +2,8 @@ package servlets;
 
 import database.DBConnector;
 import database.ReviewDao;
+import database.UpvoteResult;
+import util.HikeVersions;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -57,20 +59,27 @@ public class ToggleReviewUpvoteServlet extends HttpServlet {
 
             int reviewId = requestJson.get("reviewId").getAsInt();
 
-            // Check if user already upvoted before toggle
-            boolean wasUpvoted = reviewDao.hasUserUpvoted(reviewId, userId);
-
-            // Toggle upvote
-            int newUpvotesCount = reviewDao.toggleUpvote(reviewId, userId);
+            // Toggle upvote (one short transaction; returns the new count and state)
+            UpvoteResult result = reviewDao.toggleUpvote(reviewId, userId);
+            if (result == null) {
+                resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                JsonObject errorResponse = new JsonObject();
+                errorResponse.addProperty("error", "Review not found");
+                resp.getWriter().write(gson.toJson(errorResponse));
+                return;
+            }
 
-            // Determine if it's now upvoted (opposite of what it was before)
-            boolean isUpvoted = !wasUpvoted;
+            // Upvote counts are part of the hike's review list: invalidate its ETag
+            Integer hikeId = result.getHikeId() != null ? result.getHikeId() : reviewDao.getHikeIdForReview(reviewId);
+            if (hikeId != null) {
+                HikeVersions.getInstance().bump(hikeId);
+            }
 
             // Create response
             JsonObject response = new JsonObject();
             response.addProperty("reviewId", reviewId);
-            response.addProperty("upvotes", newUpvotesCount);
-            response.addProperty("upvoted", isUpvoted);
+            response.addProperty("upvotes", result.getUpvotes());
+            response.addProperty("upvoted", result.isUpvoted());
 
             resp.setStatus(HttpServletResponse.SC_OK);
             resp.getWriter().write(gson.toJson(response));
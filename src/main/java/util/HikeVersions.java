@@ -0,0 +1,123 @@
+package util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-hike version counters for conditional GETs on /api/hikes/{id} and
+ * /api/reviews?hikeId=. Writers call bump() after committing a review, upvote
+ * toggle or photo for a hike; readers turn the current Stamp into an ETag /
+ * Last-Modified pair and can answer a matching If-None-Match with 304 without
+ * touching the database.
+ *
+ * Versions live in memory only. Every ETag carries the server start time, so tags
+ * handed out before a restart never match afterwards, and hikes not written since
+ * startup report the start time as Last-Modified.
+ */
+public class HikeVersions {
+
+    private static final HikeVersions INSTANCE = new HikeVersions();
+
+    private final long startedAt = System.currentTimeMillis();
+    private final String epoch = Long.toString(startedAt, 36);
+    private final ConcurrentHashMap<Integer, Stamp> stamps = new ConcurrentHashMap<>();
+
+    /** A hike's version and when it was last bumped. */
+    public static final class Stamp {
+        private final long version;
+        private final long lastModified;
+
+        Stamp(long version, long lastModified) {
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    public static HikeVersions getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Read this before loading the data the response is built from, so a write that
+     * lands in between can only make the tag older than the body, never newer.
+     */
+    public Stamp current(int hikeId) {
+        Stamp stamp = stamps.get(hikeId);
+        return stamp != null ? stamp : new Stamp(0, startedAt);
+    }
+
+    public void bump(int hikeId) {
+        long now = System.currentTimeMillis();
+        stamps.compute(hikeId, (id, old) -> old == null
+                ? new Stamp(1, Math.max(now, startedAt + 1000))
+                // Last-Modified has one-second resolution, so keep it moving by at least that
+                : new Stamp(old.version + 1, Math.max(now, old.lastModified + 1000)));
+    }
+
+    /**
+     * Strong ETag for a hike's resource. variant separates responses that differ for the
+     * same version (e.g. "reviews-u42", since upvote flags depend on the viewer).
+     */
+    public String etag(int hikeId, Stamp stamp, String variant) {
+        return "\"" + epoch + "-" + hikeId + "-" + stamp.version + "-" + variant + "\"";
+    }
+
+    // -----------------------------
+    // HTTP helpers
+    // -----------------------------
+
+    /**
+     * Whether the request's validators match, i.e. the client's copy is current and a
+     * 304 can be sent. If-None-Match takes precedence over If-Modified-Since.
+     */
+    public static boolean isNotModified(HttpServletRequest req, String etag, long lastModified) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = req.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false; // unparseable date: ignore it
+        }
+        // HTTP dates have one-second resolution
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * ETag / Last-Modified for a 200 or 304. Only set on responses for hikes that exist,
+     * so a 404 never hands out a tag that could later be answered with 304.
+     */
+    public static void setValidators(HttpServletResponse resp, String etag, long lastModified) {
+        resp.setHeader("ETag", etag);
+        resp.setDateHeader("Last-Modified", lastModified);
+        // Let clients keep the body but revalidate every time
+        resp.setHeader("Cache-Control", "private, no-cache");
+        resp.setHeader("Access-Control-Expose-Headers", "ETag, Last-Modified");
+    }
+
+    /** Weak comparison against a comma-separated If-None-Match list, as GET requires. */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
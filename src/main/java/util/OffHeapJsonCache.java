@@ -0,0 +1,173 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * LRU cache of pre-serialized JSON bodies, keyed by an int id (e.g. a hike id), with
+ * the bytes held outside the Java heap.
+ *
+ * The arena is one direct ByteBuffer of a fixed byte budget, cut into BLOCK_SIZE
+ * blocks; an entry occupies as many blocks as its body needs, not necessarily
+ * adjacent. When a new entry doesn't fit, the least recently used entries are evicted
+ * until it does. Bodies larger than a quarter of the budget are not cached.
+ *
+ * Each entry is stored with the version it was built from (see HikeVersions); a
+ * lookup with a different version drops the entry, so any write that bumps the
+ * version invalidates it.
+ *
+ * Readers pin the entry they got (acquire / release), so its blocks are not handed
+ * to another entry while they are still copying it to a response. The copy goes
+ * through a per-thread scratch array, so a hit does not allocate.
+ */
+public class OffHeapJsonCache {
+
+    static final int BLOCK_SIZE = 4096;
+
+    private final ByteBuffer arena;
+    private final int blockCount;
+    private final int maxEntryBytes;
+
+    // Free block indexes, used as a stack. Guarded by this.
+    private final int[] freeBlocks;
+    private int freeCount;
+
+    // Access-ordered, so iteration starts at the least recently used entry. Guarded by this.
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[BLOCK_SIZE]);
+
+    /** A cached body. Only valid between acquire() and release(). */
+    public static final class Entry {
+        private final int[] blocks;
+        private final int length;
+        private final long version;
+        private int pins;        // readers currently copying it; guarded by the cache
+        private boolean removed; // evicted / invalidated; blocks are freed once unpinned
+
+        private Entry(int[] blocks, int length, long version) {
+            this.blocks = blocks;
+            this.length = length;
+            this.version = version;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+
+    public OffHeapJsonCache(long budgetBytes) {
+        this.blockCount = (int) Math.min(Integer.MAX_VALUE / BLOCK_SIZE, Math.max(0, budgetBytes / BLOCK_SIZE));
+        this.arena = ByteBuffer.allocateDirect(blockCount * BLOCK_SIZE);
+        this.maxEntryBytes = blockCount * BLOCK_SIZE / 4;
+        this.freeBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks[i] = blockCount - 1 - i;
+        }
+        this.freeCount = blockCount;
+    }
+
+    public boolean isEnabled() {
+        return blockCount > 0;
+    }
+
+    /**
+     * The entry for key if it was built from version, pinned until release(); otherwise null.
+     */
+    public synchronized Entry acquire(int key, long version) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version != version) {
+            entries.remove(key);
+            discard(entry);
+            return null;
+        }
+        entry.pins++;
+        return entry;
+    }
+
+    public synchronized void release(Entry entry) {
+        entry.pins--;
+        if (entry.removed && entry.pins == 0) {
+            freeBlocksOf(entry);
+        }
+    }
+
+    /**
+     * Copy an acquired entry's bytes to out.
+     */
+    public void writeTo(Entry entry, OutputStream out) throws IOException {
+        byte[] scratch = SCRATCH.get();
+        int remaining = entry.length;
+        for (int block : entry.blocks) {
+            int n = Math.min(BLOCK_SIZE, remaining);
+            // Absolute bulk get: no shared position, so concurrent readers don't interfere
+            arena.get(block * BLOCK_SIZE, scratch, 0, n);
+            out.write(scratch, 0, n);
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Store body for key, replacing any older entry. Silently skipped when the body is
+     * too large or the space is held by entries that are being read.
+     */
+    public synchronized void put(int key, long version, byte[] body) {
+        if (body.length > maxEntryBytes) {
+            return;
+        }
+        Entry old = entries.remove(key);
+        if (old != null) {
+            discard(old);
+        }
+
+        int needed = Math.max(1, (body.length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        Iterator<Entry> lru = entries.values().iterator();
+        while (freeCount < needed && lru.hasNext()) {
+            Entry victim = lru.next();
+            lru.remove();
+            discard(victim);
+        }
+        if (freeCount < needed) {
+            return;
+        }
+
+        int[] blocks = new int[needed];
+        for (int i = 0; i < needed; i++) {
+            int block = freeBlocks[--freeCount];
+            blocks[i] = block;
+            int offset = i * BLOCK_SIZE;
+            arena.put(block * BLOCK_SIZE, body, offset, Math.min(BLOCK_SIZE, body.length - offset));
+        }
+        entries.put(key, new Entry(blocks, body.length, version));
+    }
+
+    public synchronized void invalidate(int key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void discard(Entry entry) {
+        entry.removed = true;
+        if (entry.pins == 0) {
+            freeBlocksOf(entry);
+        }
+    }
+
+    private void freeBlocksOf(Entry entry) {
+        for (int block : entry.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package util;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared, bounded pool for running a request's independent database reads side by side
+ * (e.g. the hike page's detail and review queries), so the request takes about as long
+ * as its slowest query instead of the sum of all of them.
+ *
+ * The pool is kept well below the connection pool size so fan-out cannot starve other
+ * requests of connections. When it is saturated, work runs on the calling thread, i.e.
+ * a busy server degrades to sequential reads rather than rejecting requests.
+ *
+ * Settings (system properties):
+ *  - hikes.parallelReads.threads   (default 8)
+ */
+public final class ParallelReads {
+
+    private static final int THREADS = Integer.getInteger("hikes.parallelReads.threads", 8);
+    private static final int QUEUE_SIZE = 64;
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private ParallelReads() {
+    }
+
+    /** A read that may fail like the DAO calls it wraps. */
+    public interface Read<T> {
+        T run() throws SQLException, IOException;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+                r -> {
+                    Thread t = new Thread(r, "parallel-read-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static <T> Future<T> submit(Read<T> read) {
+        Callable<T> task = read::run;
+        return EXECUTOR.submit(task);
+    }
+
+    /**
+     * Wait for a submitted read and rethrow its failure as the original exception type.
+     */
+    public static <T> T await(Future<T> future, long timeoutMillis) throws SQLException, IOException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IOException("Interrupted while waiting for a database read", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new SQLException("Database read timed out after " + timeoutMillis + "ms", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Called when the webapp is undeployed. */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package util;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical reads: while one caller (the leader) is loading
+ * a key, other callers asking for the same key wait for its result instead of
+ * running the same queries again. Nothing is kept once the load finishes, so
+ * this is not a cache; it only collapses requests that overlap in time.
+ *
+ * Results are handed to several threads at once, so return immutable values
+ * (e.g. the serialized JSON body). An exception thrown by the leader is rethrown
+ * to every waiting caller. A loader should not write to one caller's response:
+ * everyone waiting would then depend on how fast that client reads.
+ */
+public class SingleFlight<K, V> {
+
+    /** The work to share. */
+    public interface Loader<V> {
+        V load() throws SQLException, IOException;
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public V execute(K key, Loader<V> loader) throws SQLException, IOException {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        loads.incrementAndGet();
+        try {
+            V value = loader.load();
+            mine.complete(value);
+            return value;
+        } catch (SQLException | IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) throws SQLException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shared request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Loads actually run. */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    /** Callers that got another caller's result instead of loading. */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}